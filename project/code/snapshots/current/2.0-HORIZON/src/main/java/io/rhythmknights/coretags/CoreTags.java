@@ -9,9 +9,12 @@ import io.rhythmknights.coretags.component.command.CommandModule;
 import io.rhythmknights.coretags.component.data.ConfigModule;
 import io.rhythmknights.coretags.component.data.PlayerDataModule;
 import io.rhythmknights.coretags.component.hook.LuckPermsHook;
+import io.rhythmknights.coretags.component.hook.PermissionCache;
 import io.rhythmknights.coretags.component.hook.PlaceholderHook;
 import io.rhythmknights.coretags.component.hook.VaultHook;
 import io.rhythmknights.coretags.component.modal.CategoryModal;
+import io.rhythmknights.coretags.component.modal.ComponentWatcher;
+import io.rhythmknights.coretags.component.modal.GuiSettings;
 import io.rhythmknights.coretags.component.modal.ModalProcessor;
 import io.rhythmknights.coretags.component.modal.TagModal;
 
@@ -21,6 +24,7 @@ import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -30,7 +34,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,14 +49,17 @@ public final class CoreTags extends JavaPlugin {
     
     // Core components
     private LuckPermsHook luckPermsHook;
+    private PermissionCache permissionCache;
     private VaultHook vaultHook;
     private ConfigModule configModule;
+    private volatile GuiSettings settings;
     private CategoryModal categoryModal;
     private TagModal tagModal;
     private PlayerDataModule playerDataModule;
     private ModalProcessor modalProcessor;
     private CommandModule commandModule;
     private PlaceholderHook placeholderHook;
+    private ComponentWatcher componentWatcher;
 
     @Override
     public void onLoad() {
@@ -94,6 +104,8 @@ public final class CoreTags extends JavaPlugin {
         this.categoryModal = new CategoryModal(this);
         this.tagModal = new TagModal(this);
         this.playerDataModule = new PlayerDataModule(this);
+        this.permissionCache = new PermissionCache(this);
+        this.settings = GuiSettings.compile(getConfig(), configModule, categoryModal, tagModal, getLogger());
         this.modalProcessor = new ModalProcessor(this);
         this.commandModule = new CommandModule(this);
         
@@ -101,7 +113,8 @@ public final class CoreTags extends JavaPlugin {
             this.placeholderHook = new PlaceholderHook(this);
         }
 
-        this.reloadEverything();
+        updateComponentWatcher();
+
         info("CoreTags enabled successfully.");
         
         if (Bukkit.getPluginManager().isPluginEnabled("Nexo")) {
@@ -111,6 +124,22 @@ public final class CoreTags extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (componentWatcher != null) {
+            componentWatcher.close();
+            componentWatcher = null;
+        }
+
+        // Player data and LuckPerms share one shutdown budget, so disabling never waits
+        // longer than shutdown-timeout in total
+        long deadline = System.currentTimeMillis() + (configModule != null ? configModule.shutdownTimeoutMillis() : 0L);
+        if (playerDataModule != null) {
+            playerDataModule.shutdown(deadline - System.currentTimeMillis());
+        }
+
+        if (luckPermsHook != null) {
+            luckPermsHook.shutdown(deadline - System.currentTimeMillis());
+        }
+
         info("CoreTags disabled.");
     }
 
@@ -162,22 +191,77 @@ public final class CoreTags extends JavaPlugin {
         }
     }
 
-    public void reloadEverything() {
+    /**
+     * The parsed config.yml owned by {@link ConfigModule}, so that every reader shares
+     * the single copy the reload pipeline produces instead of JavaPlugin's own.
+     */
+    @Override
+    public FileConfiguration getConfig() {
+        return configModule != null && configModule.raw() != null ? configModule.raw() : super.getConfig();
+    }
+
+    /**
+     * Reloads config.yml, categories.yml, tags.yml and player storage. Each file is read
+     * and parsed exactly once on an async thread, where every derived structure is also
+     * built. If any file fails to parse nothing is applied and the returned future
+     * completes exceptionally. Otherwise the results are swapped in together in one main
+     * thread task, and the future completes there.
+     */
+    public CompletableFuture<Void> reloadEverything() {
         info("Reloading CoreTags…");
-        reloadConfig();
-        configModule.reload();
-        configModule.forceReload();
-        categoryModal.reload();
-        tagModal.reload();
-        modalProcessor.reloadFileConfigs();
-        playerDataModule.reload();
-        modalProcessor.refreshAll();
-        
-        if (placeholderHook != null) {
-            placeholderHook.refreshAll();
-        }
+        List<UUID> online = Bukkit.getOnlinePlayers().stream().map(Player::getUniqueId).toList();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            FileConfiguration config;
+            List<Runnable> commits = new ArrayList<>();
+            try {
+                config = configModule.read();
+                commits.add(categoryModal.prepareReload());
+                commits.add(tagModal.prepareReload());
+                commits.add(playerDataModule.prepareReload(ConfigModule.storageType(config), online));
+            } catch (Exception e) {
+                getLogger().severe("Reload aborted, keeping the current configuration: " + e.getMessage());
+                done.completeExceptionally(e);
+                return;
+            }
 
-        info("Reload complete.");
+            Bukkit.getScheduler().runTask(this, () -> {
+                configModule.apply(config);
+                commits.forEach(Runnable::run);
+                permissionCache.invalidateAll();
+                updateComponentWatcher();
+                recompileSettings();
+                modalProcessor.refreshAll();
+
+                info("Reload complete.");
+                done.complete(null);
+            });
+        });
+        return done;
+    }
+
+    /**
+     * Recompiles the shared {@link GuiSettings} from the published config, categories and
+     * tags, then has the GUIs drop what they built from the old copy. Main thread only.
+     */
+    public void recompileSettings() {
+        this.settings = GuiSettings.compile(getConfig(), configModule, categoryModal, tagModal, getLogger());
+        modalProcessor.reloadLayout();
+    }
+
+    /** Starts or stops the components/ watcher to match {@code settings.system.watch-components}. */
+    private void updateComponentWatcher() {
+        if (configModule.watchComponents() && componentWatcher == null) {
+            try {
+                componentWatcher = new ComponentWatcher(this);
+            } catch (IOException e) {
+                getLogger().warning("Could not watch components/ for changes: " + e.getMessage());
+            }
+        } else if (!configModule.watchComponents() && componentWatcher != null) {
+            componentWatcher.close();
+            componentWatcher = null;
+        }
     }
 
     public void sendReloadMessage(CommandSender sender) {
@@ -186,19 +270,15 @@ public final class CoreTags extends JavaPlugin {
             Class<?> textUtilityClass = Class.forName("io.rhythmknights.coreframework.component.utility.TextUtility");
             java.lang.reflect.Method sendMessage = textUtilityClass.getMethod("sendMessage", CommandSender.class, String.class);
             
-            FileConfiguration cfg = getConfig();
-            boolean usePrefix = cfg.getBoolean("settings.messages.enable-prefix", false);
-            String prefix = usePrefix ? cfg.getString("settings.messages.prefix", "") : "";
-            String raw = cfg.getString("settings.messages.msg-reload", "<green>CoreTags configuration reloaded!</green>");
+            GuiSettings settings = this.settings;
+            String raw = settings.msgReload != null ? settings.msgReload : "<green>CoreTags configuration reloaded!</green>";
             
-            sendMessage.invoke(null, sender, prefix + raw);
+            sendMessage.invoke(null, sender, settings.reloadPrefix + raw);
         } catch (Exception e) {
             // Fallback to legacy method
-            FileConfiguration cfg = getConfig();
-            boolean usePrefix = cfg.getBoolean("settings.messages.enable-prefix", false);
-            String prefix = usePrefix ? cfg.getString("settings.messages.prefix", "") : "";
-            String raw = cfg.getString("settings.messages.msg-reload", "CoreTags configuration reloaded!");
-            sender.sendMessage(prefix + raw);
+            GuiSettings settings = this.settings;
+            String raw = settings.msgReload != null ? settings.msgReload : "CoreTags configuration reloaded!";
+            sender.sendMessage(settings.reloadPrefix + raw);
         }
     }
 
@@ -211,6 +291,10 @@ public final class CoreTags extends JavaPlugin {
         return luckPermsHook;
     }
 
+    public PermissionCache permissions() {
+        return permissionCache;
+    }
+
     public VaultHook economy() {
         return vaultHook;
     }
@@ -219,6 +303,11 @@ public final class CoreTags extends JavaPlugin {
         return configModule;
     }
 
+    /** The settings compiled by the last reload; replaced, never changed, so safe to hold for one use. */
+    public GuiSettings settings() {
+        return settings;
+    }
+
     public CategoryModal categories() {
         return categoryModal;
     }
@@ -235,6 +324,10 @@ public final class CoreTags extends JavaPlugin {
         return modalProcessor;
     }
 
+    public PlaceholderHook placeholders() {
+        return placeholderHook;
+    }
+
     // Helper methods
     private LuckPerms getLuckPermsApi() {
         RegisteredServiceProvider<LuckPerms> rsp = Bukkit.getServicesManager().getRegistration(LuckPerms.class);
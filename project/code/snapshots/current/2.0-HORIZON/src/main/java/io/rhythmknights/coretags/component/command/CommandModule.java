@@ -4,7 +4,6 @@ import io.rhythmknights.coretags.CoreTags;
 import io.rhythmknights.coretags.component.data.PlayerDataModule;
 import io.rhythmknights.coretags.component.modal.TagModal;
 
-import net.kyori.adventure.text.Component;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.model.group.Group;
 import net.luckperms.api.node.Node;
@@ -61,10 +60,27 @@ public final class CommandModule implements CommandExecutor, TabCompleter {
                     sendMessage(sender, "<red>No permission.</red>");
                     return true;
                 }
-                plugin.reloadEverything();
-                plugin.sendReloadMessage(sender);
+                plugin.reloadEverything().whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        plugin.sendReloadMessage(sender);
+                    } else {
+                        Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(plugin.configs().reloadFailedMessage()));
+                    }
+                });
                 return true;
                 
+            case "search":
+                if (!(sender instanceof Player)) {
+                    sendMessage(sender, "<red>Only players can search tags.</red>");
+                    return true;
+                }
+                if (args.length < 2) {
+                    sendMessage(sender, "<red>Usage: /coretags search <text></red>");
+                    return true;
+                }
+                plugin.modalProcessor().openSearch((Player) sender, String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+                return true;
+
             case "unlock":
             case "lock":
                 boolean grant = args[0].equalsIgnoreCase("unlock");
@@ -144,7 +160,7 @@ public final class CommandModule implements CommandExecutor, TabCompleter {
         
         String tagName;
         if (tag != null) {
-            tagName = extractTagName(tag.name());
+            tagName = tag.nameText().plain();
         } else {
             tagName = tagId;
         }
@@ -155,36 +171,28 @@ public final class CommandModule implements CommandExecutor, TabCompleter {
             dataManager.unlockTag(uuid, tagId);
             
             // Send message to player if online
-            String playerMessage = plugin.getConfig().getString("settings.messages.tag-unlocked", 
-                "<green>{tag}</green> <gray>has been unlocked.</gray>");
-            playerMessage = playerMessage.replace("{tag}", tagName);
+            String playerMessage = plugin.settings().msgCommandUnlocked.replace("{tag}", tagName);
             
             if (off.isOnline() && off.getPlayer() != null) {
                 sendMessage(off.getPlayer(), playerMessage);
             }
 
             // Send message to console/admin
-            String consoleMessage = plugin.getConfig().getString("settings.messages.tag-authorize", 
-                "<gold>{tag}</gold> <gray>tag</gray> <green>unlocked</green> <gray>for</gray> <blue>{player}</blue>.");
-            consoleMessage = consoleMessage.replace("{tag}", tagName).replace("{player}", playerName);
+            String consoleMessage = plugin.settings().msgTagAuthorize.replace("{tag}", tagName).replace("{player}", playerName);
             sendMessage(sender, consoleMessage);
             
         } else {
             dataManager.lockTag(uuid, tagId);
             
             // Send message to player if online
-            String playerMessage = plugin.getConfig().getString("settings.messages.tag-locked", 
-                "<red>{tag}</red> <gray>has been locked.</gray>");
-            playerMessage = playerMessage.replace("{tag}", tagName);
+            String playerMessage = plugin.settings().msgCommandLocked.replace("{tag}", tagName);
             
             if (off.isOnline() && off.getPlayer() != null) {
                 sendMessage(off.getPlayer(), playerMessage);
             }
 
             // Send message to console/admin
-            String consoleMessage = plugin.getConfig().getString("settings.messages.tag-revoke", 
-                "<gold>{tag}</gold> <gray>tag</gray> <red>locked</red> <gray>for</gray> <blue>{player}</blue>.");
-            consoleMessage = consoleMessage.replace("{tag}", tagName).replace("{player}", playerName);
+            String consoleMessage = plugin.settings().msgTagRevoke.replace("{tag}", tagName).replace("{player}", playerName);
             sendMessage(sender, consoleMessage);
         }
     }
@@ -193,7 +201,7 @@ public final class CommandModule implements CommandExecutor, TabCompleter {
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         switch (args.length) {
             case 1:
-                return filter(args[0], List.of("reload", "unlock", "lock"));
+                return filter(args[0], List.of("reload", "search", "unlock", "lock"));
                 
             case 2:
                 if (args[0].equalsIgnoreCase("unlock") || args[0].equalsIgnoreCase("lock")) {
@@ -247,18 +255,4 @@ public final class CommandModule implements CommandExecutor, TabCompleter {
             sender.sendMessage(message);
         }
     }
-
-    private String extractTagName(Component component) {
-        try {
-            // Try to extract plain text from Component
-            Class<?> plainTextSerializerClass = Class.forName("net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer");
-            Method plainTextMethod = plainTextSerializerClass.getMethod("plainText");
-            Object plainTextSerializer = plainTextMethod.invoke(null);
-            Method serializeMethod = plainTextSerializerClass.getMethod("serialize", Component.class);
-            return (String) serializeMethod.invoke(plainTextSerializer, component);
-        } catch (Exception e) {
-            // Fallback - return string representation
-            return component.toString();
-        }
-    }
 }
\ No newline at end of file
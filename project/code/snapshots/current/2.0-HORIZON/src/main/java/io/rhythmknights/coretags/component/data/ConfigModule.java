@@ -27,6 +27,15 @@ public final class ConfigModule {
    private String messagePrefix;
    private String reloadSuccessMessage;
    private String reloadFailedMessage;
+   private String storageType;
+   private long flushIntervalMillis;
+   private int flushThreshold;
+   private long shutdownTimeoutMillis;
+   private long journalCompactBytes;
+   private int offlineCacheSize;
+   private long offlineCacheTtlMillis;
+   private int luckPermsConcurrency;
+   private boolean watchComponents;
 
    public ConfigModule(CoreTags plugin) {
       this.plugin = plugin;
@@ -36,18 +45,28 @@ public final class ConfigModule {
 
    public void reload() {
       try {
-         File file = new File(this.plugin.getDataFolder(), "config.yml");
-         this.cfg = new YamlConfiguration();
-         this.cfg.load(file);
+         this.apply(this.read());
       } catch (IOException | InvalidConfigurationException var2) {
          this.plugin.getLogger().severe("Could not load config.yml: " + var2.getMessage());
-         return;
       }
 
+   }
+
+   /** Reads and parses config.yml without applying it. Safe to call off the main thread. */
+   public YamlConfiguration read() throws IOException, InvalidConfigurationException {
+      YamlConfiguration yaml = new YamlConfiguration();
+      yaml.load(new File(this.plugin.getDataFolder(), "config.yml"));
+      return yaml;
+   }
+
+   /** Makes {@code config} the active configuration and re-derives every setting from it. */
+   public void apply(FileConfiguration config) {
+      this.cfg = config;
       this.parseMessageSettings();
       this.parseCostSettings();
       this.parseGuiSlots();
       this.parseSystemBlock();
+      this.parseStorageSettings();
       this.plugin.getLogger().info("Config loaded. (" + this.guiSlots.size() + " GUI slots)");
    }
 
@@ -132,6 +151,7 @@ public final class ConfigModule {
 
       this.defaultView = sys.getString("default-view", "category").toLowerCase(Locale.ROOT);
       this.closeButtonSwap = sys.getBoolean("close-button-swap", true);
+      this.watchComponents = sys.getBoolean("watch-components", false);
       ConfigurationSection cbc = sys.getConfigurationSection("close-button-cmd");
       if (cbc == null) {
          cbc = sys.createSection("close-button-cmd");
@@ -148,6 +168,27 @@ public final class ConfigModule {
       this.closeCmd = new ConfigModule.CloseCmd(enabled, closeFirst, cmds, console);
    }
 
+   private void parseStorageSettings() {
+      ConfigurationSection st = this.cfg.getConfigurationSection("settings.storage");
+      if (st == null) {
+         st = this.cfg.createSection("settings.storage");
+      }
+
+      this.storageType = storageType(this.cfg);
+      this.flushIntervalMillis = Math.round(Math.max(0.05D, st.getDouble("flush-interval", 5.0D)) * 1000.0D);
+      this.flushThreshold = Math.max(1, st.getInt("flush-threshold", 64));
+      this.shutdownTimeoutMillis = Math.round(Math.max(0.0D, st.getDouble("shutdown-timeout", 10.0D)) * 1000.0D);
+      this.journalCompactBytes = Math.max(64L, st.getLong("journal.compact-threshold", 4096L)) * 1024L;
+      this.offlineCacheSize = Math.max(0, st.getInt("cache.offline-size", 500));
+      this.offlineCacheTtlMillis = Math.max(0L, st.getLong("cache.offline-ttl", 300L)) * 1000L;
+      this.luckPermsConcurrency = Math.max(1, st.getInt("luckperms.concurrency", 4));
+   }
+
+   /** The storage backend named by {@code config}, for callers that need it before the config is applied. */
+   public static String storageType(FileConfiguration config) {
+      return config.getString("settings.storage.type", "flatfile").toLowerCase(Locale.ROOT);
+   }
+
    public boolean convertCostFree() {
       return this.convertCostFree;
    }
@@ -172,6 +213,10 @@ public final class ConfigModule {
       return this.closeButtonSwap;
    }
 
+   public boolean watchComponents() {
+      return this.watchComponents;
+   }
+
    public ConfigModule.CloseCmd closeCmd() {
       return this.closeCmd;
    }
@@ -192,6 +237,38 @@ public final class ConfigModule {
       return this.reloadFailedMessage;
    }
 
+   public String storageType() {
+      return this.storageType;
+   }
+
+   public long flushIntervalMillis() {
+      return this.flushIntervalMillis;
+   }
+
+   public int flushThreshold() {
+      return this.flushThreshold;
+   }
+
+   public long shutdownTimeoutMillis() {
+      return this.shutdownTimeoutMillis;
+   }
+
+   public long journalCompactBytes() {
+      return this.journalCompactBytes;
+   }
+
+   public int offlineCacheSize() {
+      return this.offlineCacheSize;
+   }
+
+   public long offlineCacheTtlMillis() {
+      return this.offlineCacheTtlMillis;
+   }
+
+   public int luckPermsConcurrency() {
+      return this.luckPermsConcurrency;
+   }
+
    public FileConfiguration raw() {
       return this.cfg;
    }
@@ -205,19 +282,7 @@ public final class ConfigModule {
    }
 
    public void forceReload() {
-      try {
-         File file = new File(this.plugin.getDataFolder(), "config.yml");
-         this.cfg = new YamlConfiguration();
-         this.cfg.load(file);
-         this.parseMessageSettings();
-         this.parseCostSettings();
-         this.parseGuiSlots();
-         this.parseSystemBlock();
-         this.plugin.getLogger().info("Config reloaded from disk. (" + this.guiSlots.size() + " GUI slots)");
-      } catch (IOException | InvalidConfigurationException var2) {
-         this.plugin.getLogger().severe("Could not reload config.yml: " + var2.getMessage());
-      }
-
+      this.reload();
    }
 
    public static record CloseCmd(boolean enabled, boolean closeGuiFirst, List<String> commands, boolean runAsConsole) {
@@ -0,0 +1,140 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * One small YAML file per player, sharded by the first two hex digits of the
+ * UUID ({@code playerdata/3f/3f2a...yml}). Loading touches only that player's
+ * file and every save atomically replaces it through a temp file and rename.
+ */
+public final class FlatFileStorageBackend implements StorageBackend {
+   private static final String EXT = ".yml";
+   private final Path root;
+
+   public FlatFileStorageBackend(File root) {
+      this.root = root.toPath();
+   }
+
+   public String name() {
+      return "flatfile";
+   }
+
+   public void open() throws IOException {
+      Files.createDirectories(this.root);
+   }
+
+   public PlayerDataModule.PlayerData load(UUID uuid) throws IOException {
+      Path file = this.fileOf(uuid);
+      if (!Files.isRegularFile(file)) {
+         return null;
+      } else {
+         YamlConfiguration yaml = new YamlConfiguration();
+
+         try {
+            yaml.loadFromString(Files.readString(file, StandardCharsets.UTF_8));
+         } catch (InvalidConfigurationException var5) {
+            throw new IOException("Could not parse " + file.getFileName() + ": " + var5.getMessage(), var5);
+         }
+
+         return YamlStorageBackend.read(yaml);
+      }
+   }
+
+   public void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException {
+      YamlConfiguration yaml = new YamlConfiguration();
+      YamlStorageBackend.write(yaml, data);
+      Path file = this.fileOf(uuid);
+      Files.createDirectories(file.getParent());
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.writeString(tmp, yaml.saveToString(), StandardCharsets.UTF_8);
+
+      try {
+         Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException var7) {
+         Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+   }
+
+   public void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException {
+      IOException failure = null;
+
+      for (Map.Entry<UUID, PlayerDataModule.PlayerData> e : batch.entrySet()) {
+         try {
+            this.save(e.getKey(), e.getValue());
+         } catch (IOException var6) {
+            failure = var6;
+         }
+      }
+
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   public void deleteAll(Collection<UUID> uuids) throws IOException {
+      for (UUID uuid : uuids) {
+         Files.deleteIfExists(this.fileOf(uuid));
+      }
+
+   }
+
+   public int purgeEmpty() throws IOException {
+      int[] removed = new int[1];
+      this.forEach((uuid, pd) -> {
+         if (pd.isEmpty()) {
+            try {
+               Files.deleteIfExists(this.fileOf(uuid));
+               ++removed[0];
+            } catch (IOException var5) {
+            }
+         }
+
+      });
+      return removed[0];
+   }
+
+   public void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) throws IOException {
+      try (DirectoryStream<Path> shards = Files.newDirectoryStream(this.root, Files::isDirectory)) {
+         for (Path shard : shards) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + EXT)) {
+               for (Path file : files) {
+                  String name = file.getFileName().toString();
+
+                  try {
+                     UUID uuid = UUID.fromString(name.substring(0, name.length() - EXT.length()));
+                     PlayerDataModule.PlayerData pd = this.load(uuid);
+                     if (pd != null) {
+                        action.accept(uuid, pd);
+                     }
+                  } catch (IllegalArgumentException | IOException var13) {
+                  }
+               }
+            }
+         }
+      }
+
+   }
+
+   public void close() {
+   }
+
+   private Path fileOf(UUID uuid) {
+      String id = uuid.toString().toLowerCase(Locale.ROOT);
+      return this.root.resolve(id.substring(0, 2)).resolve(id + EXT);
+   }
+}
@@ -0,0 +1,474 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only binary journal of tag mutations plus a periodically compacted
+ * snapshot. Each write-behind batch is diffed against the last known state,
+ * appended as compact {@code (op, uuid, tag)} records and fsynced once, so a
+ * crash loses at most the batch in flight. Torn records at the tail are
+ * detected by their CRC and discarded on the next start.
+ */
+public final class JournalStorageBackend implements StorageBackend {
+   private static final int SNAPSHOT_MAGIC = 0x43544A53;
+   private static final int SNAPSHOT_VERSION = 1;
+   private static final byte OP_UNLOCK = 1;
+   private static final byte OP_LOCK = 2;
+   private static final byte OP_ACTIVE = 3;
+   private static final byte OP_FAVORITE = 4;
+   private static final byte OP_UNFAVORITE = 5;
+   private final Logger logger;
+   private final Path snapshotFile;
+   private final Path journalFile;
+   private final Path rotatedFile;
+   private final long compactThreshold;
+   private final long shutdownTimeoutMillis;
+   private final Map<UUID, PlayerDataModule.PlayerData> state = new HashMap();
+   private final ExecutorService compactor = Executors.newSingleThreadExecutor((r) -> {
+      Thread t = new Thread(r, "CoreTags-Compactor");
+      t.setDaemon(true);
+      return t;
+   });
+   private FileChannel journal;
+   private boolean compacting;
+
+   public JournalStorageBackend(File dir, long compactThreshold, long shutdownTimeoutMillis, Logger logger) {
+      Path root = dir.toPath();
+      this.snapshotFile = root.resolve("snapshot.bin");
+      this.journalFile = root.resolve("journal.log");
+      this.rotatedFile = root.resolve("journal.log.old");
+      this.compactThreshold = Math.max(64L * 1024L, compactThreshold);
+      this.shutdownTimeoutMillis = Math.max(0L, shutdownTimeoutMillis);
+      this.logger = logger;
+   }
+
+   public String name() {
+      return "journal";
+   }
+
+   public synchronized void open() throws IOException {
+      Files.createDirectories(this.journalFile.getParent());
+      this.state.clear();
+      if (Files.isRegularFile(this.snapshotFile)) {
+         try {
+            this.readSnapshot();
+         } catch (IOException var6) {
+            this.state.clear();
+            Path moved = this.quarantineSnapshot();
+            this.logger.severe("Player data snapshot is unreadable (" + var6.getMessage() + "); moved it to " + moved.getFileName() + " and loading from the journals alone. Players whose records were only in the snapshot will look empty until it is restored.");
+         }
+      }
+
+      if (Files.isRegularFile(this.rotatedFile)) {
+         long validOld = this.replay(this.rotatedFile);
+
+         // Later compactions append to this file, so drop a torn tail that would hide them
+         try (FileChannel old = FileChannel.open(this.rotatedFile, StandardOpenOption.WRITE)) {
+            if (old.size() > validOld) {
+               old.truncate(validOld);
+               old.force(true);
+            }
+         }
+      }
+
+      long valid = Files.isRegularFile(this.journalFile) ? this.replay(this.journalFile) : 0L;
+      this.state.values().removeIf(PlayerDataModule.PlayerData::isEmpty);
+      this.journal = FileChannel.open(this.journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      if (this.journal.size() > valid) {
+         this.logger.warning("Discarding " + (this.journal.size() - valid) + " byte(s) of torn journal tail.");
+         this.journal.truncate(valid);
+      }
+
+      this.journal.position(valid);
+   }
+
+   public synchronized PlayerDataModule.PlayerData load(UUID uuid) {
+      return (PlayerDataModule.PlayerData)this.state.get(uuid);
+   }
+
+   public void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException {
+      this.saveAll(Map.of(uuid, data));
+   }
+
+   public synchronized void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException {
+      ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+      for (Map.Entry<UUID, PlayerDataModule.PlayerData> e : batch.entrySet()) {
+         this.diff(buf, e.getKey(), (PlayerDataModule.PlayerData)this.state.get(e.getKey()), e.getValue());
+      }
+
+      this.append(buf);
+      batch.forEach((uuid, pd) -> {
+         this.state.put(uuid, pd);
+      });
+      this.maybeCompact();
+   }
+
+   public synchronized void deleteAll(Collection<UUID> uuids) throws IOException {
+      ByteArrayOutputStream buf = new ByteArrayOutputStream();
+      PlayerDataModule.PlayerData empty = new PlayerDataModule.PlayerData("none", Set.of(), Set.of());
+
+      for (UUID uuid : uuids) {
+         PlayerDataModule.PlayerData before = (PlayerDataModule.PlayerData)this.state.get(uuid);
+         if (before != null) {
+            this.diff(buf, uuid, before, empty);
+         }
+      }
+
+      this.append(buf);
+      this.state.keySet().removeAll(uuids);
+      this.maybeCompact();
+   }
+
+   public synchronized int purgeEmpty() {
+      int before = this.state.size();
+      this.state.values().removeIf(PlayerDataModule.PlayerData::isEmpty);
+      return before - this.state.size();
+   }
+
+   private void append(ByteArrayOutputStream buf) throws IOException {
+      if (buf.size() > 0) {
+         ByteBuffer bytes = ByteBuffer.wrap(buf.toByteArray());
+
+         while(bytes.hasRemaining()) {
+            this.journal.write(bytes);
+         }
+
+         this.journal.force(false);
+      }
+
+   }
+
+   private void maybeCompact() throws IOException {
+      if (!this.compacting && this.journal.size() >= this.compactThreshold) {
+         this.compacting = true;
+         this.compactor.execute(this::compact);
+      }
+
+   }
+
+   public synchronized void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) {
+      this.state.forEach((uuid, pd) -> {
+         action.accept(uuid, pd);
+      });
+   }
+
+   public void close() {
+      this.compactor.shutdown();
+
+      try {
+         this.compactor.awaitTermination(this.shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException var5) {
+         Thread.currentThread().interrupt();
+      }
+
+      synchronized(this) {
+         if (this.journal != null) {
+            try {
+               this.journal.force(true);
+               this.journal.close();
+            } catch (IOException var3) {
+            }
+
+            this.journal = null;
+         }
+
+      }
+   }
+
+   private void diff(ByteArrayOutputStream out, UUID uuid, PlayerDataModule.PlayerData before, PlayerDataModule.PlayerData after) throws IOException {
+      Set<String> unlocked = before == null ? Set.of() : before.unlocked;
+      Set<String> favorites = before == null ? Set.of() : before.favorites;
+      String active = before == null ? "none" : before.active;
+
+      for (String id : after.unlocked) {
+         if (!unlocked.contains(id)) {
+            record(out, OP_UNLOCK, uuid, id);
+         }
+      }
+
+      for (String id : unlocked) {
+         if (!after.unlocked.contains(id)) {
+            record(out, OP_LOCK, uuid, id);
+         }
+      }
+
+      for (String id : after.favorites) {
+         if (!favorites.contains(id)) {
+            record(out, OP_FAVORITE, uuid, id);
+         }
+      }
+
+      for (String id : favorites) {
+         if (!after.favorites.contains(id)) {
+            record(out, OP_UNFAVORITE, uuid, id);
+         }
+      }
+
+      if (!active.equals(after.active)) {
+         record(out, OP_ACTIVE, uuid, after.active);
+      }
+
+   }
+
+   private static void record(OutputStream out, byte op, UUID uuid, String id) throws IOException {
+      byte[] tag = id.getBytes(StandardCharsets.UTF_8);
+      ByteBuffer rec = ByteBuffer.allocate(1 + 16 + 2 + tag.length);
+      rec.put(op).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putShort((short)tag.length).put(tag);
+      CRC32 crc = new CRC32();
+      crc.update(rec.array());
+      out.write(rec.array());
+      out.write(ByteBuffer.allocate(4).putInt((int)crc.getValue()).array());
+   }
+
+   private long replay(Path file) throws IOException {
+      long valid = 0L;
+
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+         while(true) {
+            byte op;
+            long msb;
+            long lsb;
+            byte[] tag;
+            int stored;
+            try {
+               op = in.readByte();
+               msb = in.readLong();
+               lsb = in.readLong();
+               tag = new byte[in.readUnsignedShort()];
+               in.readFully(tag);
+               stored = in.readInt();
+            } catch (EOFException var19) {
+               break;
+            }
+
+            ByteBuffer rec = ByteBuffer.allocate(1 + 16 + 2 + tag.length);
+            rec.put(op).putLong(msb).putLong(lsb).putShort((short)tag.length).put(tag);
+            CRC32 crc = new CRC32();
+            crc.update(rec.array());
+            if ((int)crc.getValue() != stored) {
+               break;
+            }
+
+            this.apply(op, new UUID(msb, lsb), new String(tag, StandardCharsets.UTF_8));
+            valid += (long)(rec.capacity() + 4);
+         }
+      }
+
+      return valid;
+   }
+
+   private void apply(byte op, UUID uuid, String id) {
+      PlayerDataModule.PlayerData pd = (PlayerDataModule.PlayerData)this.state.get(uuid);
+      if (pd == null) {
+         pd = new PlayerDataModule.PlayerData("none", Set.of(), Set.of());
+      }
+
+      switch(op) {
+      case OP_UNLOCK:
+         pd = pd.withUnlocked(id, true);
+         break;
+      case OP_LOCK:
+         pd = pd.withUnlocked(id, false);
+         break;
+      case OP_ACTIVE:
+         pd = pd.withActive(id);
+         break;
+      case OP_FAVORITE:
+         pd = pd.withFavorite(id, true);
+         break;
+      case OP_UNFAVORITE:
+         pd = pd.withFavorite(id, false);
+      }
+
+      this.state.put(uuid, pd);
+
+   }
+
+   private void compact() {
+      Map<UUID, PlayerDataModule.PlayerData> copy;
+      synchronized(this) {
+         try {
+            this.journal.force(true);
+            if (Files.exists(this.rotatedFile)) {
+               this.appendToRotated();
+            } else {
+               this.journal.close();
+               Files.move(this.journalFile, this.rotatedFile);
+               this.journal = FileChannel.open(this.journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+         } catch (IOException var10) {
+            this.logger.log(Level.SEVERE, "Could not rotate player data journal.", var10);
+            this.compacting = false;
+            return;
+         }
+
+         copy = new HashMap(this.state);
+      }
+
+      try {
+         this.writeSnapshot(copy);
+         Files.deleteIfExists(this.rotatedFile);
+      } catch (IOException var8) {
+         this.logger.log(Level.SEVERE, "Could not compact player data journal.", var8);
+      } finally {
+         synchronized(this) {
+            this.compacting = false;
+         }
+      }
+
+   }
+
+   /**
+    * A previous compaction rotated the journal but failed to write its snapshot, so the
+    * rotated file still holds records no snapshot covers. The live journal is appended
+    * to it and then emptied, rather than replacing it. Replay order is unchanged, and a
+    * crash part-way only leaves records that replay twice, which is harmless.
+    */
+   private void appendToRotated() throws IOException {
+      try (
+         FileChannel in = FileChannel.open(this.journalFile, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(this.rotatedFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      ) {
+         long size = in.size();
+         long pos = 0L;
+
+         while(pos < size) {
+            pos += in.transferTo(pos, size - pos, out);
+         }
+
+         out.force(true);
+      }
+
+      this.journal.truncate(0L);
+      this.journal.position(0L);
+      this.journal.force(true);
+   }
+
+   private void writeSnapshot(Map<UUID, PlayerDataModule.PlayerData> data) throws IOException {
+      Path tmp = this.snapshotFile.resolveSibling("snapshot.bin.tmp");
+      CRC32 crc = new CRC32();
+
+      try (
+         OutputStream raw = Files.newOutputStream(tmp);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(raw, crc)));
+      ) {
+         out.writeInt(SNAPSHOT_MAGIC);
+         out.writeInt(SNAPSHOT_VERSION);
+         out.writeInt(data.size());
+
+         for (Map.Entry<UUID, PlayerDataModule.PlayerData> e : data.entrySet()) {
+            PlayerDataModule.PlayerData pd = e.getValue();
+            out.writeLong(e.getKey().getMostSignificantBits());
+            out.writeLong(e.getKey().getLeastSignificantBits());
+            out.writeUTF(pd.active);
+            writeSet(out, pd.unlocked);
+            writeSet(out, pd.favorites);
+         }
+
+         out.flush();
+         raw.write(ByteBuffer.allocate(8).putLong(crc.getValue()).array());
+      }
+
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+         ch.force(true);
+      }
+
+      try {
+         Files.move(tmp, this.snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException var11) {
+         Files.move(tmp, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+   }
+
+   /**
+    * Moves an unreadable snapshot out of the way so the journals can still be replayed
+    * and the next compaction does not overwrite it. Returns where it was moved.
+    */
+   private Path quarantineSnapshot() throws IOException {
+      Path target = this.snapshotFile.resolveSibling("snapshot.bin.corrupt");
+      if (Files.exists(target)) {
+         target = this.snapshotFile.resolveSibling("snapshot.bin.corrupt-" + System.currentTimeMillis());
+      }
+
+      Files.move(this.snapshotFile, target);
+      return target;
+   }
+
+   private void readSnapshot() throws IOException {
+      CRC32 crc = new CRC32();
+
+      try (InputStream raw = new BufferedInputStream(Files.newInputStream(this.snapshotFile))) {
+         DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+         if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unrecognised snapshot format in " + this.snapshotFile.getFileName());
+         }
+
+         int count = in.readInt();
+
+         for (int i = 0; i < count; ++i) {
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            String active = in.readUTF();
+            this.state.put(uuid, new PlayerDataModule.PlayerData(active, readSet(in), readSet(in)));
+         }
+
+         long expected = crc.getValue();
+         if (new DataInputStream(raw).readLong() != expected) {
+            throw new IOException("Checksum mismatch in " + this.snapshotFile.getFileName());
+         }
+      }
+   }
+
+   private static void writeSet(DataOutputStream out, Set<String> ids) throws IOException {
+      out.writeInt(ids.size());
+
+      for (String id : ids) {
+         out.writeUTF(id);
+      }
+
+   }
+
+   private static Set<String> readSet(DataInputStream in) throws IOException {
+      int n = in.readInt();
+      Set<String> out = new HashSet(n);
+
+      for (int i = 0; i < n; ++i) {
+         out.add(in.readUTF());
+      }
+
+      return out;
+   }
+}
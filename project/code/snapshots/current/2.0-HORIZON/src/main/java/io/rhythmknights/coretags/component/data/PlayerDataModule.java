@@ -1,241 +1,711 @@
 package io.rhythmknights.coretags.component.data;
 
 import io.rhythmknights.coretags.CoreTags;
+import io.rhythmknights.coretags.component.hook.LuckPermsHook;
 import java.io.File;
 import java.io.IOException;
-import java.util.AbstractCollection;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import net.luckperms.api.LuckPerms;
-import net.luckperms.api.event.player.PlayerLoginProcessEvent;
+import net.luckperms.api.event.node.NodeMutateEvent;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.node.Node;
 import org.bukkit.Bukkit;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 
 public final class PlayerDataModule implements Listener {
+   private static final long LOAD_RETRY_MILLIS = 5000L;
    private final CoreTags plugin;
    private final LuckPerms lp;
-   private final File dataFile;
-   private final YamlConfiguration yaml = new YamlConfiguration();
-   private final Map<UUID, PlayerDataModule.PlayerData> cache = new ConcurrentHashMap();
+   private final File dataDir;
+   private volatile StorageBackend backend;
+   private volatile String backendType;
+   private final Map<UUID, PlayerDataModule.CacheEntry> cache = new ConcurrentHashMap();
+   private final Map<UUID, CompletableFuture<PlayerDataModule.CacheEntry>> loading = new ConcurrentHashMap();
+   private final Set<UUID> absent = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<UUID, Boolean>(256, 0.75F, true) {
+      protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+         return this.size() > 10000;
+      }
+   }));
+   private final WriteBehindQueue writeQueue;
 
    public PlayerDataModule(CoreTags plugin) {
       this.plugin = plugin;
       this.lp = plugin.luckPerms().api();
-      File dir = new File(plugin.getDataFolder(), "playerdata");
-      if (!dir.exists()) {
-         dir.mkdirs();
+      this.dataDir = new File(plugin.getDataFolder(), "playerdata");
+      if (!this.dataDir.exists()) {
+         this.dataDir.mkdirs();
       }
 
-      this.dataFile = new File(dir, "players.yml");
-      if (!this.dataFile.exists()) {
-         try {
-            this.dataFile.createNewFile();
-         } catch (IOException var4) {
-            plugin.getLogger().severe("Could not create players.yml");
+      ConfigModule cfg = plugin.configs();
+      this.writeQueue = new WriteBehindQueue(plugin.getLogger(), cfg.flushIntervalMillis(), cfg.flushThreshold(), this::flush);
+      this.backendType = cfg.storageType();
+      this.backend = this.openBackend(this.backendType);
+      Bukkit.getOnlinePlayers().forEach((p) -> {
+         this.entry(p.getUniqueId()).pinned = true;
+      });
+      Bukkit.getPluginManager().registerEvents(this, plugin);
+      (new BukkitRunnable() {
+         public void run() {
+            PlayerDataModule.this.sweep();
          }
+      }).runTaskTimer(plugin, 600L, 600L);
+      if (this.lp != null) {
+         this.lp.getEventBus().subscribe(plugin, NodeMutateEvent.class, this::onNodeMutate);
       }
 
-      this.reload();
-      Bukkit.getPluginManager().registerEvents(this, plugin);
-      if (this.lp != null) {
-         this.lp.getEventBus().subscribe(plugin, PlayerLoginProcessEvent.class, (e) -> {
-            UUID uuid = e.getUser().getUniqueId();
-            PlayerDataModule.PlayerData pd = this.loadIntoCache(uuid);
-            this.mergeWithLuckPerms(uuid, pd, true);
-            this.save();
-         });
+   }
+
+   /**
+    * Does the storage side of a reload on the calling worker thread: flushes pending
+    * writes, opens the backend named by {@code type} if it differs from the current one
+    * and re-reads the records of the {@code online} players. The returned action, run on
+    * the main thread, swaps the backend and cache in without reading storage. A re-read
+    * record only replaces a cached one that has not changed since it was read; entries
+    * mutated meanwhile, including ones already flushed, and players who joined meanwhile
+    * keep their cached record, which is queued for the new backend when it changed. A
+    * record the current backend fails to re-read keeps its cached entry as well.
+    *
+    * <p>When the backend changes, the swap waits for any batch in flight and happens
+    * while the writer is held, so every write after it goes to the new backend, and the
+    * old one is closed only after that. Cached offline records changed since the prepare,
+    * whether still queued or already written to the old backend, stay cached and are
+    * queued for the new one instead of being evicted.
+    */
+   public synchronized Runnable prepareReload(String type, Collection<UUID> online) {
+      this.writeQueue.flush();
+      StorageBackend current = this.backend;
+      StorageBackend next = type.equals(this.backendType) && !(current instanceof UnavailableStorageBackend) ? current : this.openBackend(type);
+      Map<UUID, PlayerDataModule.CacheEntry> fresh = new HashMap();
+      Map<UUID, PlayerDataModule.PlayerData> seen = new HashMap();
+      this.cache.forEach((uuid, cached) -> {
+         seen.put(uuid, (PlayerDataModule.PlayerData)cached.data.get());
+      });
+
+      for (UUID uuid : online) {
+         PlayerDataModule.CacheEntry ce = this.read(next, uuid, false);
+         if (ce.loaded || next != current) {
+            ce.pinned = true;
+            fresh.put(uuid, ce);
+         }
       }
 
+      return () -> {
+         this.writeQueue.whilePaused(() -> {
+            this.backend = next;
+            this.backendType = type;
+         });
+         this.absent.clear();
+         for (Map.Entry<UUID, PlayerDataModule.CacheEntry> e : this.cache.entrySet()) {
+            UUID uuid = e.getKey();
+            PlayerDataModule.CacheEntry ce = e.getValue();
+            if (!fresh.containsKey(uuid)) {
+               if (next != current && ce.loaded && (this.writeQueue.isPending(uuid) || ce.data.get() != seen.get(uuid))) {
+                  this.markDirty(uuid);
+               } else {
+                  this.evictIfIdle(uuid, ce);
+               }
+            }
+         }
+
+         fresh.forEach((uuid, ce) -> {
+            if (!this.replaceIfUnchanged(uuid, seen.get(uuid), ce)) {
+               PlayerDataModule.CacheEntry cached = this.entry(uuid);
+               cached.pinned = true;
+               if (next != current) {
+                  this.markDirty(uuid);
+               }
+            }
+
+         });
+         if (next != current) {
+            Bukkit.getScheduler().runTaskAsynchronously(this.plugin, current::close);
+         }
+
+      };
    }
 
-   public void reload() {
+   /**
+    * Writes everything still queued, waiting at most {@code timeoutMillis}, and closes the
+    * backend. Returns {@code false} if some records could not be saved.
+    */
+   public boolean shutdown(long timeoutMillis) {
+      boolean saved = this.writeQueue.shutdown(timeoutMillis);
+      this.backend.close();
+      return saved;
+   }
+
+   /**
+    * Opens the backend named by {@code type}. If it fails to open, storage fails closed:
+    * the returned stand-in keeps the configured name and rejects every read and write,
+    * so no record is loaded as authoritative, saved, purged or sent to a store the admin
+    * did not choose until a reload opens the configured one.
+    */
+   private StorageBackend openBackend(String type) {
+      StorageBackend created = switch(type) {
+         case "sqlite" -> new SqliteStorageBackend(new File(this.dataDir, "players.db"));
+         case "yaml" -> new YamlStorageBackend(new File(this.dataDir, "players.yml"));
+         case "journal" -> new JournalStorageBackend(new File(this.dataDir, "journal"), this.plugin.configs().journalCompactBytes(), this.plugin.configs().shutdownTimeoutMillis(), this.plugin.getLogger());
+         default -> new FlatFileStorageBackend(new File(this.dataDir, "players"));
+      };
+
       try {
-         this.yaml.load(this.dataFile);
-      } catch (IOException | InvalidConfigurationException var2) {
-         this.plugin.getLogger().severe("Could not load players.yml: " + var2.getMessage());
+         created.open();
+      } catch (IOException var4) {
+         this.plugin.getLogger().severe("Could not open " + created.name() + " player storage: " + var4.getMessage() + ". Player data is read-only and nothing will be saved until it opens; fix the cause and run /coretags reload.");
+         return new UnavailableStorageBackend(created.name(), var4);
       }
 
-      this.cache.clear();
-      Bukkit.getOnlinePlayers().forEach((p) -> {
-         PlayerDataModule.PlayerData pd = this.loadIntoCache(p.getUniqueId());
-         this.mergeWithLuckPerms(p.getUniqueId(), pd, true);
-      });
-      this.save();
+      this.importLegacy(created);
+      this.purgeOnce(created);
+      this.plugin.getLogger().info("Player data storage: " + created.name());
+      return created;
+   }
+
+   /**
+    * Older versions wrote a default record for every UUID that was ever looked up.
+    * Those are removed once per backend in the background; nothing writes them any more.
+    */
+   private void purgeOnce(StorageBackend target) {
+      File marker = new File(this.dataDir, "." + target.name() + "-purged");
+      if (!marker.exists()) {
+         Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            try {
+               int removed = target.purgeEmpty();
+               marker.createNewFile();
+               if (removed > 0) {
+                  this.plugin.getLogger().info("Purged " + removed + " empty player record(s) from " + target.name() + " storage.");
+               }
+            } catch (IOException var4) {
+               this.plugin.getLogger().warning("Could not purge empty player records: " + var4.getMessage());
+            }
+
+         });
+      }
+   }
+
+   private void importLegacy(StorageBackend target) {
+      File legacy = new File(this.dataDir, "players.yml");
+      if (!(target instanceof YamlStorageBackend) && legacy.isFile() && legacy.length() > 0L) {
+         StorageBackend source = new YamlStorageBackend(legacy);
+         Map<UUID, PlayerDataModule.PlayerData> all = new HashMap();
+
+         try {
+            source.open();
+            source.forEach((uuid, pd) -> {
+               if (!pd.isEmpty()) {
+                  all.put(uuid, pd);
+               }
+
+            });
+            target.saveAll(all);
+         } catch (IOException var6) {
+            this.plugin.getLogger().severe("Could not import players.yml into " + target.name() + " storage: " + var6.getMessage());
+            return;
+         }
+
+         if (legacy.renameTo(new File(this.dataDir, "players.yml.migrated"))) {
+            this.plugin.getLogger().info("Imported " + all.size() + " player(s) from players.yml into " + target.name() + " storage.");
+         }
+      }
+
+   }
+
+   /**
+    * Loads the record and reconciles it with LuckPerms (which has loaded the user by now)
+    * on the async login thread, so that by the time the player joins the main thread only
+    * ever sees a cache hit. Placeholders need no warming: tag text is serialized when the
+    * catalog is built.
+    */
+   @EventHandler(
+      priority = EventPriority.MONITOR
+   )
+   public void onPreLogin(AsyncPlayerPreLoginEvent e) {
+      if (e.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+         UUID uuid = e.getUniqueId();
+         this.entry(uuid);
+         this.mergeWithLuckPerms(uuid, true);
+      }
    }
 
    @EventHandler
    public void onJoin(final PlayerJoinEvent e) {
-      (new BukkitRunnable() {
-         public void run() {
-            UUID uuid = e.getPlayer().getUniqueId();
-            PlayerDataModule.PlayerData pd = PlayerDataModule.this.loadIntoCache(uuid);
-            PlayerDataModule.this.mergeWithLuckPerms(uuid, pd, true);
-            PlayerDataModule.this.save();
-         }
-      }).runTaskAsynchronously(this.plugin);
+      final UUID uuid = e.getPlayer().getUniqueId();
+      PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+      if (ce != null) {
+         ce.pinned = true;
+      } else {
+         (new BukkitRunnable() {
+            public void run() {
+               PlayerDataModule.CacheEntry loaded = PlayerDataModule.this.entry(uuid);
+               PlayerDataModule.this.mergeWithLuckPerms(uuid, true);
+               loaded.pinned = e.getPlayer().isOnline();
+            }
+         }).runTaskAsynchronously(this.plugin);
+      }
+
+   }
+
+   @EventHandler
+   public void onQuit(PlayerQuitEvent e) {
+      UUID uuid = e.getPlayer().getUniqueId();
+      PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+      if (ce != null) {
+         ce.pinned = false;
+         this.writeQueue.afterFlush(() -> {
+            if (this.plugin.isEnabled()) {
+               Bukkit.getScheduler().runTask(this.plugin, () -> {
+                  this.evictIfIdle(uuid, ce);
+               });
+            }
+
+         });
+      }
+
    }
 
+   /**
+    * Returns the current snapshot for {@code uuid}. Snapshots are immutable and safe to
+    * read from any thread; changes publish a new snapshot rather than altering this one.
+    */
    public PlayerDataModule.PlayerData get(UUID uuid) {
-      return (PlayerDataModule.PlayerData)this.cache.computeIfAbsent(uuid, this::loadIntoCache);
+      return (PlayerDataModule.PlayerData)this.entry(uuid).data.get();
+   }
+
+   private PlayerDataModule.CacheEntry entry(UUID uuid) {
+      PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+      if (ce == null) {
+         ce = this.load(uuid);
+      } else if (!ce.loaded && System.currentTimeMillis() >= ce.retryAt) {
+         ce = this.retryLoad(uuid, ce);
+      }
+
+      ce.lastAccess = System.currentTimeMillis();
+      return ce;
+   }
+
+   /**
+    * Reads the record behind {@code failed}, an entry whose load failed, and swaps the
+    * result in for it. If the read fails again the new entry waits another
+    * {@link #LOAD_RETRY_MILLIS} before the next attempt.
+    */
+   private PlayerDataModule.CacheEntry retryLoad(UUID uuid, PlayerDataModule.CacheEntry failed) {
+      failed.retryAt = Long.MAX_VALUE;
+      PlayerDataModule.CacheEntry fresh = this.loadIntoCache(uuid);
+      synchronized(failed) {
+         fresh.pinned = failed.pinned;
+         if (!failed.evicted && this.cache.replace(uuid, failed, fresh)) {
+            failed.evicted = true;
+            return fresh;
+         }
+      }
+
+      return this.entry(uuid);
+   }
+
+   /**
+    * Loads {@code uuid} into the cache. Only one thread loads a given player at a time;
+    * any other caller, such as the main thread racing a pre-login prefetch, waits on that
+    * load's future instead of starting a second cold read. If the load it waited on
+    * failed, the caller falls back to loading itself.
+    */
+   private PlayerDataModule.CacheEntry load(UUID uuid) {
+      CompletableFuture<PlayerDataModule.CacheEntry> mine = new CompletableFuture();
+      CompletableFuture<PlayerDataModule.CacheEntry> running = (CompletableFuture)this.loading.putIfAbsent(uuid, mine);
+      if (running != null) {
+         try {
+            return (PlayerDataModule.CacheEntry)running.join();
+         } catch (CompletionException var9) {
+            return this.load(uuid);
+         }
+      } else {
+         try {
+            PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+            if (ce == null) {
+               PlayerDataModule.CacheEntry fresh = this.loadIntoCache(uuid);
+               ce = (PlayerDataModule.CacheEntry)this.cache.putIfAbsent(uuid, fresh);
+               if (ce == null) {
+                  ce = fresh;
+               }
+            }
+
+            mine.complete(ce);
+            return ce;
+         } catch (RuntimeException var10) {
+            mine.completeExceptionally(var10);
+            throw var10;
+         } finally {
+            this.loading.remove(uuid, mine);
+         }
+      }
+   }
+
+   /**
+    * Removes {@code ce} if it is unpinned and has nothing queued or being written. Holds
+    * the entry's lock, which {@link #update} holds while it publishes and queues a change,
+    * so an entry can never be dropped between those two steps.
+    */
+   private void evictIfIdle(UUID uuid, PlayerDataModule.CacheEntry ce) {
+      synchronized(ce) {
+         if (!ce.pinned && !this.writeQueue.isPending(uuid) && this.cache.remove(uuid, ce)) {
+            ce.evicted = true;
+         }
+
+      }
+   }
+
+   /**
+    * Installs {@code fresh} for {@code uuid} unless the cached entry has changed since it
+    * held {@code seen} or has a write queued. Returns whether {@code fresh} was installed.
+    */
+   private boolean replaceIfUnchanged(UUID uuid, PlayerDataModule.PlayerData seen, PlayerDataModule.CacheEntry fresh) {
+      PlayerDataModule.CacheEntry cached = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+      if (cached == null) {
+         return this.cache.putIfAbsent(uuid, fresh) == null;
+      } else {
+         synchronized(cached) {
+            if (!cached.evicted && cached.data.get() == seen && !this.writeQueue.isPending(uuid) && this.cache.replace(uuid, cached, fresh)) {
+               cached.evicted = true;
+               return true;
+            } else {
+               return false;
+            }
+         }
+      }
+   }
+
+   /**
+    * Drops unpinned (offline) entries that have outlived the configured TTL and then,
+    * if still above the size cap, the least recently used ones. Entries with unsaved
+    * changes are skipped and picked up by a later sweep. Each removal goes through
+    * {@link #evictIfIdle}, so it cannot race a mutation made from an async thread.
+    */
+   private void sweep() {
+      ConfigModule cfg = this.plugin.configs();
+      long expiry = System.currentTimeMillis() - cfg.offlineCacheTtlMillis();
+      List<Map.Entry<UUID, PlayerDataModule.CacheEntry>> idle = new ArrayList();
+
+      for (Map.Entry<UUID, PlayerDataModule.CacheEntry> e : this.cache.entrySet()) {
+         PlayerDataModule.CacheEntry ce = e.getValue();
+         if (!ce.pinned && !this.writeQueue.isPending(e.getKey())) {
+            if (ce.lastAccess < expiry) {
+               this.evictIfIdle(e.getKey(), ce);
+            } else {
+               idle.add(e);
+            }
+         }
+      }
+
+      int excess = idle.size() - cfg.offlineCacheSize();
+      if (excess > 0) {
+         idle.sort(Comparator.comparingLong((e) -> {
+            return e.getValue().lastAccess;
+         }));
+
+         for (int i = 0; i < excess; ++i) {
+            Map.Entry<UUID, PlayerDataModule.CacheEntry> e = (Map.Entry)idle.get(i);
+            this.evictIfIdle(e.getKey(), e.getValue());
+         }
+      }
+
    }
 
    public void unlockTag(UUID uuid, String id) {
-      PlayerDataModule.PlayerData pd = this.get(uuid);
-      if (pd.unlocked.add(id)) {
+      if (this.update(uuid, (pd) -> {
+         return pd.withUnlocked(id, true);
+      })) {
          this.setLpNode(uuid, id, true);
-         this.markDirty(uuid);
       }
 
    }
 
    public void lockTag(UUID uuid, String id) {
-      PlayerDataModule.PlayerData pd = this.get(uuid);
-      if (pd.unlocked.remove(id)) {
+      if (this.update(uuid, (pd) -> {
+         return locked(pd, id);
+      })) {
          this.setLpNode(uuid, id, false);
-         if (pd.active.equals(id)) {
-            pd.active = "none";
-         }
-
-         pd.favorites.remove(id);
-         this.markDirty(uuid);
       }
 
    }
 
    public void setActive(UUID uuid, String id) {
-      PlayerDataModule.PlayerData pd = this.get(uuid);
-      pd.active = id;
-      this.markDirty(uuid);
+      this.update(uuid, (pd) -> {
+         return pd.withActive(id);
+      });
    }
 
    public void toggleFavorite(UUID uuid, String id) {
-      PlayerDataModule.PlayerData pd = this.get(uuid);
-      if (!pd.favorites.remove(id)) {
-         pd.favorites.add(id);
-      }
+      this.update(uuid, (pd) -> {
+         return pd.withFavorite(id, !pd.favorites.contains(id));
+      });
+   }
 
-      this.markDirty(uuid);
+   private static PlayerDataModule.PlayerData locked(PlayerDataModule.PlayerData pd, String id) {
+      if (!pd.unlocked.contains(id)) {
+         return pd;
+      } else {
+         PlayerDataModule.PlayerData next = pd.withUnlocked(id, false).withFavorite(id, false);
+         return next.active.equals(id) ? next.withActive("none") : next;
+      }
    }
 
-   private PlayerDataModule.PlayerData loadIntoCache(UUID uuid) {
-      ConfigurationSection sec = this.yaml.getConfigurationSection(uuid.toString());
-      if (sec == null) {
-         sec = this.yaml.createSection(uuid.toString());
+   /**
+    * Applies {@code change} to the cached snapshot and queues the player for writing,
+    * both under the entry's lock so eviction cannot slip in between; if the entry was
+    * evicted first, the change is applied to a freshly loaded one. {@code change} must be
+    * side-effect free and return its argument when there is nothing to do. A record that
+    * could not be loaded is left alone, since writing it back would replace the stored
+    * one. Returns whether a new snapshot was published.
+    */
+   private boolean update(UUID uuid, UnaryOperator<PlayerDataModule.PlayerData> change) {
+      while(true) {
+         PlayerDataModule.CacheEntry ce = this.entry(uuid);
+         synchronized(ce) {
+            if (!ce.evicted) {
+               if (!ce.loaded) {
+                  this.plugin.getLogger().warning("Not changing player data for " + uuid + ": it could not be loaded from " + this.backend.name() + " storage.");
+                  return false;
+               }
+
+               PlayerDataModule.PlayerData prev = (PlayerDataModule.PlayerData)ce.data.get();
+               PlayerDataModule.PlayerData next = (PlayerDataModule.PlayerData)change.apply(prev);
+               if (next == prev) {
+                  return false;
+               }
+
+               ce.data.set(next);
+               this.markDirty(uuid);
+               return true;
+            }
+         }
       }
+   }
 
-      PlayerDataModule.PlayerData pd = new PlayerDataModule.PlayerData(sec.getString("active", "none"), new HashSet(sec.getStringList("unlocked")), new HashSet(sec.getStringList("favorites")));
-      this.cache.put(uuid, pd);
-      return pd;
+   private PlayerDataModule.CacheEntry loadIntoCache(UUID uuid) {
+      return this.absent.contains(uuid) ? new PlayerDataModule.CacheEntry(new PlayerDataModule.PlayerData("none", Set.of(), Set.of()), true) : this.read(this.backend, uuid, true);
    }
 
-   private void write(UUID uuid, PlayerDataModule.PlayerData pd) {
-      String base = uuid.toString();
-      this.yaml.set(base + ".active", pd.active);
-      this.yaml.set(base + ".unlocked", new ArrayList(pd.unlocked));
-      this.yaml.set(base + ".favorites", new ArrayList(pd.favorites));
+   /**
+    * Reads {@code uuid} from {@code from}. When the read fails the entry holds defaults
+    * but is marked as not loaded: it is never changed or queued for writing, and the first
+    * access after {@link #LOAD_RETRY_MILLIS} reads it again.
+    */
+   private PlayerDataModule.CacheEntry read(StorageBackend from, UUID uuid, boolean noteAbsent) {
+      try {
+         PlayerDataModule.PlayerData pd = from.load(uuid);
+         if (pd == null && noteAbsent) {
+            this.absent.add(uuid);
+         }
+
+         return new PlayerDataModule.CacheEntry(pd == null ? new PlayerDataModule.PlayerData("none", Set.of(), Set.of()) : pd, true);
+      } catch (IOException var5) {
+         if (!(from instanceof UnavailableStorageBackend)) {
+            this.plugin.getLogger().severe("Could not load player data for " + uuid + " from " + from.name() + " storage; it stays read-only until a retry succeeds: " + var5.getMessage());
+         }
+
+         return new PlayerDataModule.CacheEntry(new PlayerDataModule.PlayerData("none", Set.of(), Set.of()), false);
+      }
    }
 
-   private void save() {
-      this.cache.forEach(this::write);
+   /**
+    * Writes the cached records of {@code batch}. A record left holding only defaults is
+    * deleted instead of saved, but only when it was loaded from storage: an entry whose
+    * load failed says nothing about what is stored and is never written or deleted.
+    */
+   private void flush(Collection<UUID> batch) {
+      Map<UUID, PlayerDataModule.PlayerData> copies = new HashMap(batch.size());
+      List<UUID> empty = new ArrayList();
+
+      for (UUID uuid : batch) {
+         PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+         if (ce == null) {
+            this.plugin.getLogger().severe("Queued player record for " + uuid + " is no longer cached; its changes were not saved.");
+         } else if (!ce.loaded) {
+            this.plugin.getLogger().warning("Skipping write of player record for " + uuid + ": it was never loaded from storage.");
+         } else {
+            PlayerDataModule.PlayerData pd = (PlayerDataModule.PlayerData)ce.data.get();
+            if (pd.isEmpty()) {
+               empty.add(uuid);
+            } else {
+               copies.put(uuid, pd);
+            }
+         }
+      }
+
+      StorageBackend target = this.backend;
 
       try {
-         this.yaml.save(this.dataFile);
-      } catch (IOException var2) {
-         this.plugin.getLogger().severe("Could not save players.yml");
+         target.saveAll(copies);
+         target.deleteAll(empty);
+      } catch (IOException var7) {
+         throw new UncheckedIOException(var7);
       }
 
+      this.absent.removeAll(copies.keySet());
+      this.absent.addAll(empty);
    }
 
    private void markDirty(UUID uuid) {
-      this.write(uuid, (PlayerDataModule.PlayerData)this.cache.get(uuid));
-
-      try {
-         this.yaml.save(this.dataFile);
-      } catch (IOException var3) {
+      PlayerDataModule.CacheEntry ce = (PlayerDataModule.CacheEntry)this.cache.get(uuid);
+      if (ce != null && ce.loaded) {
+         this.writeQueue.mark(uuid);
       }
 
    }
 
-   private void mergeWithLuckPerms(UUID uuid, PlayerDataModule.PlayerData pd, boolean syncLp) {
+   private void mergeWithLuckPerms(UUID uuid, boolean syncLp) {
       if (this.lp != null) {
          User user = this.lp.getUserManager().getUser(uuid);
          if (user != null) {
-            Set<String> lpUnlocked = (Set)user.getNodes().stream().filter((n) -> {
-               return n.getKey().startsWith("coretags.tag.") && n.getValue();
-            }).map((n) -> {
-               return n.getKey().substring("coretags.tag.".length());
-            }).collect(HashSet::new, HashSet::add, AbstractCollection::addAll);
-            Set<String> auth = new HashSet(lpUnlocked);
-            auth.addAll(pd.unlocked);
-            if (!auth.equals(pd.unlocked)) {
-               pd.unlocked.clear();
-               pd.unlocked.addAll(auth);
-               this.markDirty(uuid);
+            Set<String> lpUnlocked = tagIds(user.getNodes());
+            this.update(uuid, (pd) -> {
+               return pd.withUnlockedAll(lpUnlocked);
+            });
+            if (syncLp) {
+               Set<String> grant = new HashSet(this.get(uuid).unlocked);
+               grant.removeAll(lpUnlocked);
+               this.plugin.luckPerms().syncTags(uuid, grant, Set.of());
             }
+         }
+      }
 
-            if (syncLp) {
-               Iterator var7 = auth.iterator();
+   }
 
-               String id;
-               while(var7.hasNext()) {
-                  id = (String)var7.next();
-                  if (!lpUnlocked.contains(id)) {
-                     this.setLpNode(uuid, id, true);
+   /**
+    * Applies the {@code coretags.tag.*} delta of a user node change to the cached record,
+    * so grants and removals made through /lp show up without a full merge. Players that
+    * are not cached pick the change up from the login merge. Group nodes are not copied
+    * into player records; they are honoured through live permission checks.
+    */
+   private void onNodeMutate(NodeMutateEvent e) {
+      if (e.isUser()) {
+         UUID uuid = ((User)e.getTarget()).getUniqueId();
+         if (this.cache.containsKey(uuid)) {
+            Set<String> before = tagIds(e.getDataBefore());
+            Set<String> after = tagIds(e.getDataAfter());
+            if (!before.equals(after)) {
+               this.update(uuid, (pd) -> {
+                  PlayerDataModule.PlayerData next = pd;
+
+                  for (String id : after) {
+                     if (!before.contains(id)) {
+                        next = next.withUnlocked(id, true);
+                     }
                   }
-               }
-
-               var7 = lpUnlocked.iterator();
 
-               while(var7.hasNext()) {
-                  id = (String)var7.next();
-                  if (!auth.contains(id)) {
-                     this.setLpNode(uuid, id, false);
+                  for (String id : before) {
+                     if (!after.contains(id)) {
+                        next = locked(next, id);
+                     }
                   }
-               }
+
+                  return next;
+               });
             }
          }
       }
+   }
+
+   private static Set<String> tagIds(Collection<Node> nodes) {
+      Set<String> ids = new HashSet();
+
+      for (Node n : nodes) {
+         if (n.getValue() && n.getKey().startsWith(LuckPermsHook.TAG_NODE_PREFIX)) {
+            ids.add(n.getKey().substring(LuckPermsHook.TAG_NODE_PREFIX.length()));
+         }
+      }
 
+      return ids;
    }
 
    private void setLpNode(UUID uuid, String id, boolean grant) {
-      if (this.lp != null) {
-         String key = "coretags.tag." + id;
-         this.lp.getUserManager().modifyUser(uuid, (u) -> {
-            if (grant) {
-               u.data().add(Node.builder(key).value(true).build());
-            } else {
-               u.data().remove(Node.builder(key).build());
-            }
+      Set<String> ids = Set.of(id);
+      this.plugin.luckPerms().syncTags(uuid, grant ? ids : Set.of(), grant ? Set.of() : ids);
+   }
 
-         });
+   private static final class CacheEntry {
+      final AtomicReference<PlayerDataModule.PlayerData> data;
+      final boolean loaded;
+      volatile boolean pinned;
+      volatile long lastAccess;
+      volatile long retryAt;
+      boolean evicted;
+
+      CacheEntry(PlayerDataModule.PlayerData data, boolean loaded) {
+         this.data = new AtomicReference(data);
+         this.loaded = loaded;
+         this.retryAt = loaded ? Long.MAX_VALUE : System.currentTimeMillis() + PlayerDataModule.LOAD_RETRY_MILLIS;
       }
-
    }
 
+   /**
+    * Immutable snapshot of one player's tags. The {@code with*} methods return a new
+    * snapshot, or this one when nothing would change.
+    */
    public static final class PlayerData {
-      public String active;
-      public final Set<String> unlocked;
-      public final Set<String> favorites;
+      public final String active;
+      public final TagSet unlocked;
+      public final TagSet favorites;
 
-      private PlayerData(String active, Set<String> unlocked, Set<String> fav) {
+      PlayerData(String active, Set<String> unlocked, Set<String> fav) {
+         this(active, (new TagSet(unlocked)).freeze(), (new TagSet(fav)).freeze());
+      }
+
+      private PlayerData(String active, TagSet unlocked, TagSet fav) {
          this.active = active == null ? "none" : active.toLowerCase(Locale.ROOT);
          this.unlocked = unlocked;
          this.favorites = fav;
       }
+
+      boolean isEmpty() {
+         return "none".equals(this.active) && this.unlocked.isEmpty() && this.favorites.isEmpty();
+      }
+
+      PlayerDataModule.PlayerData withActive(String id) {
+         String next = id == null ? "none" : id.toLowerCase(Locale.ROOT);
+         return next.equals(this.active) ? this : new PlayerDataModule.PlayerData(next, this.unlocked, this.favorites);
+      }
+
+      PlayerDataModule.PlayerData withUnlocked(String id, boolean unlocked) {
+         TagSet next = unlocked ? this.unlocked.with(id) : this.unlocked.without(id);
+         return next == this.unlocked ? this : new PlayerDataModule.PlayerData(this.active, next, this.favorites);
+      }
+
+      PlayerDataModule.PlayerData withUnlockedAll(Collection<String> ids) {
+         if (this.unlocked.containsAll(ids)) {
+            return this;
+         } else {
+            TagSet next = this.unlocked.copy();
+            next.addAll(ids);
+            return new PlayerDataModule.PlayerData(this.active, next.freeze(), this.favorites);
+         }
+      }
+
+      PlayerDataModule.PlayerData withFavorite(String id, boolean favorite) {
+         TagSet next = favorite ? this.favorites.with(id) : this.favorites.without(id);
+         return next == this.favorites ? this : new PlayerDataModule.PlayerData(this.active, this.unlocked, next);
+      }
    }
 }
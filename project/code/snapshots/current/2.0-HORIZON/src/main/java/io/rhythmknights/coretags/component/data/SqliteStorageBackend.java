@@ -0,0 +1,207 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Embedded SQLite store. Each player is one row and every write is a per-row
+ * upsert, so save cost no longer depends on how many players have ever joined.
+ * The driver ships with Spigot/Paper, so no extra dependency is needed.
+ */
+public final class SqliteStorageBackend implements StorageBackend {
+   private static final String TABLE = "coretags_players";
+   private static final String UPSERT = "INSERT INTO " + TABLE + " (uuid, active, unlocked, favorites) VALUES (?, ?, ?, ?) "
+      + "ON CONFLICT(uuid) DO UPDATE SET active = excluded.active, unlocked = excluded.unlocked, favorites = excluded.favorites";
+   private final File file;
+   private Connection connection;
+
+   public SqliteStorageBackend(File file) {
+      this.file = file;
+   }
+
+   public String name() {
+      return "sqlite";
+   }
+
+   public synchronized void open() throws IOException {
+      try {
+         Class.forName("org.sqlite.JDBC");
+         this.file.getParentFile().mkdirs();
+         this.connection = DriverManager.getConnection("jdbc:sqlite:" + this.file.getAbsolutePath());
+
+         try (Statement st = this.connection.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+            st.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (uuid CHAR(36) PRIMARY KEY, active VARCHAR(64) NOT NULL, unlocked TEXT NOT NULL, favorites TEXT NOT NULL)");
+         }
+      } catch (ClassNotFoundException | SQLException var6) {
+         throw new IOException("Could not open " + this.file.getName() + ": " + var6.getMessage(), var6);
+      }
+   }
+
+   public synchronized PlayerDataModule.PlayerData load(UUID uuid) throws IOException {
+      try (PreparedStatement ps = this.connection.prepareStatement("SELECT active, unlocked, favorites FROM " + TABLE + " WHERE uuid = ?")) {
+         ps.setString(1, uuid.toString());
+
+         try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? read(rs) : null;
+         }
+      } catch (SQLException var10) {
+         throw new IOException("Could not load " + uuid + ": " + var10.getMessage(), var10);
+      }
+   }
+
+   public void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException {
+      this.saveAll(Map.of(uuid, data));
+   }
+
+   public synchronized void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException {
+      if (!batch.isEmpty()) {
+         try {
+            this.connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = this.connection.prepareStatement(UPSERT)) {
+               for (Map.Entry<UUID, PlayerDataModule.PlayerData> e : batch.entrySet()) {
+                  PlayerDataModule.PlayerData pd = e.getValue();
+                  ps.setString(1, e.getKey().toString());
+                  ps.setString(2, pd.active);
+                  ps.setString(3, join(pd.unlocked));
+                  ps.setString(4, join(pd.favorites));
+                  ps.addBatch();
+               }
+
+               ps.executeBatch();
+               this.connection.commit();
+            } catch (SQLException var11) {
+               this.connection.rollback();
+               throw var11;
+            } finally {
+               this.connection.setAutoCommit(true);
+            }
+         } catch (SQLException var13) {
+            throw new IOException("Could not save " + batch.size() + " player(s): " + var13.getMessage(), var13);
+         }
+      }
+
+   }
+
+   public synchronized void deleteAll(Collection<UUID> uuids) throws IOException {
+      if (!uuids.isEmpty()) {
+         try (PreparedStatement ps = this.connection.prepareStatement("DELETE FROM " + TABLE + " WHERE uuid = ?")) {
+            for (UUID uuid : uuids) {
+               ps.setString(1, uuid.toString());
+               ps.addBatch();
+            }
+
+            ps.executeBatch();
+         } catch (SQLException var7) {
+            throw new IOException("Could not delete " + uuids.size() + " player(s): " + var7.getMessage(), var7);
+         }
+      }
+
+   }
+
+   public synchronized int purgeEmpty() throws IOException {
+      try (Statement st = this.connection.createStatement()) {
+         return st.executeUpdate("DELETE FROM " + TABLE + " WHERE active = 'none' AND unlocked = '' AND favorites = ''");
+      } catch (SQLException var6) {
+         throw new IOException("Could not purge empty records: " + var6.getMessage(), var6);
+      }
+   }
+
+   public synchronized void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) throws IOException {
+      try (
+         Statement st = this.connection.createStatement();
+         ResultSet rs = st.executeQuery("SELECT uuid, active, unlocked, favorites FROM " + TABLE);
+      ) {
+         while(rs.next()) {
+            try {
+               action.accept(UUID.fromString(rs.getString("uuid")), read(rs));
+            } catch (IllegalArgumentException var8) {
+            }
+         }
+      } catch (SQLException var11) {
+         throw new IOException("Could not iterate " + TABLE + ": " + var11.getMessage(), var11);
+      }
+   }
+
+   public synchronized void close() {
+      if (this.connection != null) {
+         try {
+            this.connection.close();
+         } catch (SQLException var2) {
+         }
+
+         this.connection = null;
+      }
+
+   }
+
+   private static PlayerDataModule.PlayerData read(ResultSet rs) throws SQLException {
+      return new PlayerDataModule.PlayerData(rs.getString("active"), split(rs.getString("unlocked")), split(rs.getString("favorites")));
+   }
+
+   /**
+    * Joins ids with commas, escaping any backslash or comma inside an id with a
+    * backslash. Rows written before escaping contain neither, so they read back as before.
+    */
+   private static String join(Set<String> ids) {
+      StringBuilder out = new StringBuilder();
+      boolean first = true;
+
+      for (String id : ids) {
+         if (!first) {
+            out.append(',');
+         }
+
+         first = false;
+
+         for (int i = 0; i < id.length(); ++i) {
+            char c = id.charAt(i);
+            if (c == ',' || c == '\\') {
+               out.append('\\');
+            }
+
+            out.append(c);
+         }
+      }
+
+      return out.toString();
+   }
+
+   private static Set<String> split(String joined) {
+      Set<String> out = new HashSet();
+      if (joined != null && !joined.isEmpty()) {
+         StringBuilder id = new StringBuilder();
+
+         for (int i = 0; i < joined.length(); ++i) {
+            char c = joined.charAt(i);
+            if (c == '\\' && i + 1 < joined.length()) {
+               ++i;
+               id.append(joined.charAt(i));
+            } else if (c == ',') {
+               out.add(id.toString());
+               id.setLength(0);
+            } else {
+               id.append(c);
+            }
+         }
+
+         out.add(id.toString());
+      }
+
+      return out;
+   }
+}
@@ -0,0 +1,36 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistent store for {@link PlayerDataModule.PlayerData} records. Implementations
+ * are called from the background writer as well as from async login threads and
+ * must be safe for concurrent use.
+ */
+public interface StorageBackend {
+   /** Short identifier used in config and log output. */
+   String name();
+
+   void open() throws IOException;
+
+   /** Returns the stored record for {@code uuid}, or {@code null} if none exists. */
+   PlayerDataModule.PlayerData load(UUID uuid) throws IOException;
+
+   void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException;
+
+   void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException;
+
+   /** Removes the records for {@code uuids}; unknown UUIDs are ignored. */
+   void deleteAll(Collection<UUID> uuids) throws IOException;
+
+   /** Removes every stored record that holds only default values and returns how many were removed. */
+   int purgeEmpty() throws IOException;
+
+   void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) throws IOException;
+
+   void close();
+}
@@ -0,0 +1,69 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense {@code id -> ordinal} table for the loaded tag catalog. Tables only ever
+ * grow: a reload {@linkplain #extend extends} the current table with new ids and
+ * never renumbers existing ones, so an ordinal means the same id in every later
+ * table and {@link TagSet}s bound to an older table stay valid as a prefix.
+ */
+public final class TagOrdinals {
+   public static final TagOrdinals EMPTY = new TagOrdinals(List.of());
+   private static volatile TagOrdinals current;
+   private final String[] ids;
+   private final Map<String, Integer> index;
+
+   public TagOrdinals(List<String> ids) {
+      this.ids = (String[])ids.toArray(new String[0]);
+      this.index = new HashMap(this.ids.length * 2);
+
+      for (int i = 0; i < this.ids.length; ++i) {
+         this.index.put(this.ids[i], i);
+      }
+
+   }
+
+   public static TagOrdinals current() {
+      TagOrdinals t = current;
+      return t == null ? EMPTY : t;
+   }
+
+   /**
+    * Appends {@code more} to the current table and makes the result current in one step.
+    * Catalog builds that run concurrently each extend whatever the other published, so
+    * an ordinal is never handed to two different ids, even if one build is discarded.
+    */
+   public static synchronized TagOrdinals extendCurrent(Collection<String> more) {
+      TagOrdinals next = current().extend(more);
+      current = next;
+      return next;
+   }
+
+   /** Returns a table with {@code more} appended after the existing ids, or this table if none are new. */
+   public TagOrdinals extend(Collection<String> more) {
+      Set<String> all = new LinkedHashSet(Arrays.asList(this.ids));
+      all.addAll(more);
+      return all.size() == this.ids.length ? this : new TagOrdinals(new ArrayList(all));
+   }
+
+   public int ordinalOf(String id) {
+      Integer ord = (Integer)this.index.get(id);
+      return ord == null ? -1 : ord;
+   }
+
+   public String idOf(int ordinal) {
+      return this.ids[ordinal];
+   }
+
+   public int size() {
+      return this.ids.length;
+   }
+}
@@ -0,0 +1,242 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set of tag ids backed by a bitset over {@link TagOrdinals}. Ids that are not in
+ * the table (tags removed from tags.yml, nodes granted for unknown tags) are kept
+ * in a small overflow set so nothing is lost on save.
+ *
+ * <p>Once {@linkplain #freeze() frozen} a set rejects mutation; {@link #with} and
+ * {@link #without} return modified frozen copies instead.
+ */
+public final class TagSet extends AbstractSet<String> {
+   private TagOrdinals table;
+   private long[] words;
+   private Set<String> extra;
+   private int count;
+   private boolean frozen;
+
+   public TagSet() {
+      this(TagOrdinals.current());
+   }
+
+   public TagSet(Collection<String> ids) {
+      this(TagOrdinals.current());
+      this.addAll(ids);
+   }
+
+   private TagSet(TagOrdinals table) {
+      this.table = table;
+      this.words = new long[(table.size() + 63) >>> 6];
+   }
+
+   /**
+    * Membership by tag ordinal. Ordinals are stable across reloads, so one from any
+    * published table can be tested directly against this set's bits.
+    */
+   public boolean containsOrdinal(int ordinal) {
+      if (ordinal < 0) {
+         return false;
+      } else if (ordinal < this.table.size()) {
+         return (this.words[ordinal >>> 6] & 1L << ordinal) != 0L;
+      } else {
+         TagOrdinals cur = TagOrdinals.current();
+         return this.extra != null && ordinal < cur.size() && this.extra.contains(cur.idOf(ordinal));
+      }
+   }
+
+   public boolean contains(Object o) {
+      if (!(o instanceof String)) {
+         return false;
+      } else {
+         String id = (String)o;
+         int ord = this.table.ordinalOf(id);
+         if (ord >= 0) {
+            return (this.words[ord >>> 6] & 1L << ord) != 0L;
+         } else {
+            return this.extra != null && this.extra.contains(id);
+         }
+      }
+   }
+
+   public boolean add(String id) {
+      this.checkMutable();
+      int ord = this.table.ordinalOf(id);
+      if (ord >= 0) {
+         long bit = 1L << ord;
+         if ((this.words[ord >>> 6] & bit) != 0L) {
+            return false;
+         } else {
+            this.words[ord >>> 6] |= bit;
+            ++this.count;
+            return true;
+         }
+      } else {
+         if (this.extra == null) {
+            this.extra = new HashSet(2);
+         }
+
+         if (this.extra.add(id)) {
+            ++this.count;
+            return true;
+         } else {
+            return false;
+         }
+      }
+   }
+
+   public boolean remove(Object o) {
+      if (!(o instanceof String)) {
+         return false;
+      } else {
+         this.checkMutable();
+         String id = (String)o;
+         int ord = this.table.ordinalOf(id);
+         if (ord >= 0) {
+            long bit = 1L << ord;
+            if ((this.words[ord >>> 6] & bit) == 0L) {
+               return false;
+            } else {
+               this.words[ord >>> 6] &= ~bit;
+               --this.count;
+               return true;
+            }
+         } else if (this.extra != null && this.extra.remove(id)) {
+            --this.count;
+            return true;
+         } else {
+            return false;
+         }
+      }
+   }
+
+   public void clear() {
+      this.checkMutable();
+      this.words = new long[this.words.length];
+      this.extra = null;
+      this.count = 0;
+   }
+
+   public int size() {
+      return this.count;
+   }
+
+   /** Returns this set if it already contains {@code id}, otherwise a frozen copy with it added. */
+   public TagSet with(String id) {
+      if (this.contains(id)) {
+         return this;
+      } else {
+         TagSet out = this.copy();
+         out.add(id);
+         return out.freeze();
+      }
+   }
+
+   /** Returns this set if it does not contain {@code id}, otherwise a frozen copy without it. */
+   public TagSet without(String id) {
+      if (!this.contains(id)) {
+         return this;
+      } else {
+         TagSet out = this.copy();
+         out.remove(id);
+         return out.freeze();
+      }
+   }
+
+   TagSet freeze() {
+      this.frozen = true;
+      return this;
+   }
+
+   private void checkMutable() {
+      if (this.frozen) {
+         throw new UnsupportedOperationException("TagSet is frozen");
+      }
+   }
+
+   /** Returns an independent, mutable copy bound to the current ordinal table. */
+   public TagSet copy() {
+      TagOrdinals cur = TagOrdinals.current();
+      TagSet out = new TagSet(cur);
+      if (this.table == cur) {
+         out.words = (long[])this.words.clone();
+         out.extra = this.extra == null ? null : new HashSet(this.extra);
+         out.count = this.count;
+      } else {
+         out.addAll(this);
+      }
+
+      return out;
+   }
+
+   public Iterator<String> iterator() {
+      return new Iterator<String>() {
+         private int next = TagSet.this.nextBit(0);
+         private final Iterator<String> overflow = TagSet.this.extra == null ? Collections.emptyIterator() : TagSet.this.extra.iterator();
+         private String last;
+
+         public boolean hasNext() {
+            return this.next >= 0 || this.overflow.hasNext();
+         }
+
+         public String next() {
+            if (this.next >= 0) {
+               this.last = TagSet.this.table.idOf(this.next);
+               this.next = TagSet.this.nextBit(this.next + 1);
+            } else {
+               if (!this.overflow.hasNext()) {
+                  throw new NoSuchElementException();
+               }
+
+               this.last = (String)this.overflow.next();
+            }
+
+            return this.last;
+         }
+
+         public void remove() {
+            if (this.last == null) {
+               throw new IllegalStateException();
+            } else {
+               int ord = TagSet.this.table.ordinalOf(this.last);
+               TagSet.this.checkMutable();
+               if (ord >= 0) {
+                  TagSet.this.remove(this.last);
+               } else {
+                  this.overflow.remove();
+                  --TagSet.this.count;
+               }
+
+               this.last = null;
+            }
+         }
+      };
+   }
+
+   private int nextBit(int from) {
+      int w = from >>> 6;
+      if (w >= this.words.length) {
+         return -1;
+      } else {
+         long word = this.words[w] & -1L << from;
+
+         while(word == 0L) {
+            ++w;
+            if (w == this.words.length) {
+               return -1;
+            }
+
+            word = this.words[w];
+         }
+
+         return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+   }
+}
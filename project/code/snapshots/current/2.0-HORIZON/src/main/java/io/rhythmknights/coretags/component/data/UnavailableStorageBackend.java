@@ -0,0 +1,61 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Stands in for a configured backend that failed to open. Every call fails with the
+ * original error, so records load as unreadable and are never written anywhere until
+ * a reload opens the configured backend.
+ */
+final class UnavailableStorageBackend implements StorageBackend {
+   private final String name;
+   private final IOException cause;
+
+   UnavailableStorageBackend(String name, IOException cause) {
+      this.name = name;
+      this.cause = cause;
+   }
+
+   public String name() {
+      return this.name;
+   }
+
+   public void open() throws IOException {
+      throw this.failure();
+   }
+
+   public PlayerDataModule.PlayerData load(UUID uuid) throws IOException {
+      throw this.failure();
+   }
+
+   public void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException {
+      throw this.failure();
+   }
+
+   public void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException {
+      throw this.failure();
+   }
+
+   public void deleteAll(Collection<UUID> uuids) throws IOException {
+      throw this.failure();
+   }
+
+   public int purgeEmpty() throws IOException {
+      throw this.failure();
+   }
+
+   public void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) throws IOException {
+      throw this.failure();
+   }
+
+   public void close() {
+   }
+
+   private IOException failure() {
+      return new IOException(this.name + " storage did not open: " + this.cause.getMessage(), this.cause);
+   }
+}
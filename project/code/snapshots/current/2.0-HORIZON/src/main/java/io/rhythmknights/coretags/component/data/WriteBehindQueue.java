@@ -0,0 +1,146 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces dirty player UUIDs and hands them to a single background writer,
+ * either every {@code intervalMillis} or as soon as {@code threshold} players
+ * are waiting, whichever comes first.
+ */
+public final class WriteBehindQueue {
+   private final Logger logger;
+   private final Consumer<Collection<UUID>> writer;
+   private final int threshold;
+   private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+   private final Set<UUID> writing = ConcurrentHashMap.newKeySet();
+   private final AtomicBoolean flushQueued = new AtomicBoolean();
+   private final ScheduledExecutorService executor;
+
+   public WriteBehindQueue(Logger logger, long intervalMillis, int threshold, Consumer<Collection<UUID>> writer) {
+      this.logger = logger;
+      this.writer = writer;
+      this.threshold = Math.max(1, threshold);
+      this.executor = Executors.newSingleThreadScheduledExecutor((r) -> {
+         Thread t = new Thread(r, "CoreTags-Writer");
+         t.setDaemon(true);
+         return t;
+      });
+      long interval = Math.max(50L, intervalMillis);
+      this.executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   public void mark(UUID uuid) {
+      this.dirty.add(uuid);
+      if (this.dirty.size() >= this.threshold && this.flushQueued.compareAndSet(false, true)) {
+         try {
+            this.executor.execute(this::flush);
+         } catch (RuntimeException var3) {
+            this.flushQueued.set(false);
+         }
+      }
+
+   }
+
+   public int pending() {
+      return this.dirty.size();
+   }
+
+   /** True while {@code uuid} is queued or part of a batch that is still being written. */
+   public boolean isPending(UUID uuid) {
+      return this.dirty.contains(uuid) || this.writing.contains(uuid);
+   }
+
+   /**
+    * Flushes everything pending on the writer thread, then runs {@code after}
+    * there. If the writer has already shut down, {@code after} is not run.
+    */
+   public void afterFlush(Runnable after) {
+      try {
+         this.executor.execute(() -> {
+            this.flush();
+            after.run();
+         });
+      } catch (RuntimeException var3) {
+      }
+
+   }
+
+   /**
+    * Runs {@code action} on the calling thread while no batch is being written: it waits
+    * for a batch in flight to finish, and batches started meanwhile wait for it.
+    */
+   public synchronized void whilePaused(Runnable action) {
+      action.run();
+   }
+
+   /**
+    * Drains and writes every pending UUID on the calling thread. Batches that
+    * fail to write are re-queued for the next attempt.
+    */
+   public synchronized void flush() {
+      this.flushQueued.set(false);
+      if (!this.dirty.isEmpty()) {
+         List<UUID> batch = new ArrayList(this.dirty.size());
+
+         for (UUID uuid : this.dirty) {
+            this.writing.add(uuid);
+            if (this.dirty.remove(uuid)) {
+               batch.add(uuid);
+            }
+         }
+
+         try {
+            this.writer.accept(batch);
+         } catch (RuntimeException var3) {
+            this.dirty.addAll(batch);
+            this.logger.log(Level.SEVERE, "Could not write " + batch.size() + " player record(s); will retry.", var3);
+         } finally {
+            this.writing.clear();
+         }
+      }
+
+   }
+
+   /**
+    * Stops the background writer and performs one final flush, waiting at most
+    * {@code timeoutMillis}. Returns {@code false} if the flush did not finish in time
+    * or left records unsaved because the writer failed.
+    */
+   public boolean shutdown(long timeoutMillis) {
+      try {
+         this.executor.execute(this::flush);
+      } catch (RuntimeException var5) {
+      }
+
+      this.executor.shutdown();
+
+      try {
+         if (this.executor.awaitTermination(Math.max(0L, timeoutMillis), TimeUnit.MILLISECONDS)) {
+            if (this.dirty.isEmpty()) {
+               return true;
+            }
+
+            this.logger.severe("Final player data flush failed on shutdown; " + this.dirty.size() + " record(s) were not saved.");
+            return false;
+         }
+      } catch (InterruptedException var4) {
+         Thread.currentThread().interrupt();
+      }
+
+      this.executor.shutdownNow();
+      this.logger.warning("Timed out flushing player data on shutdown; " + this.dirty.size() + " record(s) were not saved.");
+      return false;
+   }
+}
@@ -0,0 +1,124 @@
+package io.rhythmknights.coretags.component.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Legacy single-file store: every player lives in one {@code players.yml}, which is
+ * parsed whole on open and rewritten whole on every save.
+ */
+public final class YamlStorageBackend implements StorageBackend {
+   private final File file;
+   private final YamlConfiguration yaml = new YamlConfiguration();
+
+   public YamlStorageBackend(File file) {
+      this.file = file;
+   }
+
+   public String name() {
+      return "yaml";
+   }
+
+   public synchronized void open() throws IOException {
+      if (!this.file.exists()) {
+         this.file.getParentFile().mkdirs();
+         this.file.createNewFile();
+      }
+
+      try {
+         this.yaml.load(this.file);
+      } catch (InvalidConfigurationException var2) {
+         throw new IOException("Could not parse " + this.file.getName() + ": " + var2.getMessage(), var2);
+      }
+   }
+
+   public synchronized PlayerDataModule.PlayerData load(UUID uuid) {
+      ConfigurationSection sec = this.yaml.getConfigurationSection(uuid.toString());
+      return sec == null ? null : read(sec);
+   }
+
+   public synchronized void save(UUID uuid, PlayerDataModule.PlayerData data) throws IOException {
+      this.write(uuid, data);
+      this.yaml.save(this.file);
+   }
+
+   public synchronized void saveAll(Map<UUID, PlayerDataModule.PlayerData> batch) throws IOException {
+      batch.forEach(this::write);
+      this.yaml.save(this.file);
+   }
+
+   public synchronized void deleteAll(Collection<UUID> uuids) throws IOException {
+      boolean changed = false;
+
+      for (UUID uuid : uuids) {
+         if (this.yaml.contains(uuid.toString())) {
+            this.yaml.set(uuid.toString(), (Object)null);
+            changed = true;
+         }
+      }
+
+      if (changed) {
+         this.yaml.save(this.file);
+      }
+
+   }
+
+   public synchronized int purgeEmpty() throws IOException {
+      int removed = 0;
+
+      for (String key : this.yaml.getKeys(false)) {
+         ConfigurationSection sec = this.yaml.getConfigurationSection(key);
+         if (sec == null || read(sec).isEmpty()) {
+            this.yaml.set(key, (Object)null);
+            ++removed;
+         }
+      }
+
+      if (removed > 0) {
+         this.yaml.save(this.file);
+      }
+
+      return removed;
+   }
+
+   public synchronized void forEach(BiConsumer<UUID, PlayerDataModule.PlayerData> action) {
+      for (String key : this.yaml.getKeys(false)) {
+         ConfigurationSection sec = this.yaml.getConfigurationSection(key);
+         if (sec != null) {
+            try {
+               action.accept(UUID.fromString(key), read(sec));
+            } catch (IllegalArgumentException var5) {
+            }
+         }
+      }
+
+   }
+
+   public void close() {
+   }
+
+   private void write(UUID uuid, PlayerDataModule.PlayerData pd) {
+      String base = uuid.toString();
+      ConfigurationSection sec = this.yaml.getConfigurationSection(base);
+      write(sec == null ? this.yaml.createSection(base) : sec, pd);
+   }
+
+   static void write(ConfigurationSection sec, PlayerDataModule.PlayerData pd) {
+      sec.set("active", pd.active);
+      sec.set("unlocked", new ArrayList(pd.unlocked));
+      sec.set("favorites", new ArrayList(pd.favorites));
+   }
+
+   static PlayerDataModule.PlayerData read(ConfigurationSection sec) {
+      return new PlayerDataModule.PlayerData(sec.getString("active", "none"), new HashSet(sec.getStringList("unlocked")), new HashSet(sec.getStringList("favorites")));
+   }
+}
@@ -1,15 +1,41 @@
 package io.rhythmknights.coretags.component.hook;
 
 import io.rhythmknights.coretags.CoreTags;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.node.Node;
 
 public final class LuckPermsHook {
+   public static final String TAG_NODE_PREFIX = "coretags.tag.";
    private final CoreTags plugin;
    private final LuckPerms api;
+   private final Map<UUID, LuckPermsHook.NodeBatch> pending = new ConcurrentHashMap();
+   private final Map<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap();
+   private final int concurrency;
+   private final Semaphore inFlight;
+   private final ExecutorService dispatcher;
 
    public LuckPermsHook(CoreTags plugin, LuckPerms api) {
       this.plugin = plugin;
       this.api = api;
+      this.concurrency = plugin.configs().luckPermsConcurrency();
+      this.inFlight = new Semaphore(this.concurrency);
+      this.dispatcher = Executors.newSingleThreadExecutor((r) -> {
+         Thread t = new Thread(r, "CoreTags-LuckPerms");
+         t.setDaemon(true);
+         return t;
+      });
       if (api == null) {
          plugin.getLogger().warning("LuckPerms not found – permission sync limited to YAML only.");
       }
@@ -23,4 +49,135 @@ public final class LuckPermsHook {
    public boolean isPresent() {
       return this.api != null;
    }
+
+   /**
+    * Queues tag node changes for {@code uuid}. Changes for the same user are merged
+    * (the latest grant or revoke of an id wins) and written in a single
+    * {@code modifyUser} call; at most {@code settings.storage.luckperms.concurrency}
+    * of those calls are in flight at once, and never two for the same user.
+    */
+   public void syncTags(UUID uuid, Collection<String> grant, Collection<String> revoke) {
+      if (this.api != null && (!grant.isEmpty() || !revoke.isEmpty())) {
+         boolean[] created = new boolean[1];
+         this.pending.compute(uuid, (k, batch) -> {
+            if (batch == null) {
+               batch = new LuckPermsHook.NodeBatch();
+               created[0] = true;
+            }
+
+            batch.merge(grant, revoke);
+            return batch;
+         });
+         if (created[0]) {
+            try {
+               this.dispatcher.execute(() -> {
+                  this.dispatch(uuid);
+               });
+            } catch (RuntimeException var6) {
+               this.pending.remove(uuid);
+               this.plugin.getLogger().warning("LuckPerms sync is shut down; dropped tag node changes for " + uuid + ".");
+            }
+         }
+
+      }
+   }
+
+   private void dispatch(UUID uuid) {
+      LuckPermsHook.NodeBatch batch = (LuckPermsHook.NodeBatch)this.pending.remove(uuid);
+      if (batch != null) {
+         try {
+            this.inFlight.acquire();
+         } catch (InterruptedException var5) {
+            Thread.currentThread().interrupt();
+            this.plugin.getLogger().warning("Interrupted before saving tag nodes for " + uuid + ".");
+            return;
+         }
+
+         CompletableFuture<Void> done = new CompletableFuture();
+         CompletableFuture<Void> previous = (CompletableFuture)this.tails.put(uuid, done);
+         if (previous == null) {
+            this.save(uuid, batch, done);
+         } else {
+            previous.whenComplete((v, ex) -> {
+               this.save(uuid, batch, done);
+            });
+         }
+
+      }
+   }
+
+   /**
+    * Writes one batch and completes {@code done} when LuckPerms has saved it. Batches
+    * for the same user are chained on the previous batch's {@code done}, so at most one
+    * is in flight per user and they land in the order they were queued.
+    */
+   private void save(UUID uuid, LuckPermsHook.NodeBatch batch, CompletableFuture<Void> done) {
+      try {
+         this.api.getUserManager().modifyUser(uuid, (u) -> {
+            for (String id : batch.grant) {
+               u.data().add(Node.builder(TAG_NODE_PREFIX + id).value(true).build());
+            }
+
+            for (String id : batch.revoke) {
+               u.data().remove(Node.builder(TAG_NODE_PREFIX + id).build());
+            }
+
+         }).whenComplete((v, ex) -> {
+            if (ex != null) {
+               this.plugin.getLogger().log(Level.WARNING, "Could not save tag nodes for " + uuid + ".", ex);
+            }
+
+            this.finish(uuid, done);
+         });
+      } catch (RuntimeException var5) {
+         this.plugin.getLogger().log(Level.WARNING, "Could not save tag nodes for " + uuid + ".", var5);
+         this.finish(uuid, done);
+      }
+
+   }
+
+   private void finish(UUID uuid, CompletableFuture<Void> done) {
+      this.tails.remove(uuid, done);
+      this.inFlight.release();
+      done.complete(null);
+   }
+
+   /**
+    * Dispatches everything still queued and waits, at most {@code timeoutMillis}
+    * in total, for the resulting LuckPerms saves to complete.
+    */
+   public void shutdown(long timeoutMillis) {
+      long deadline = System.currentTimeMillis() + Math.max(0L, timeoutMillis);
+      this.dispatcher.shutdown();
+
+      try {
+         if (this.dispatcher.awaitTermination(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS) && this.inFlight.tryAcquire(this.concurrency, Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+            this.inFlight.release(this.concurrency);
+            return;
+         }
+      } catch (InterruptedException var5) {
+         Thread.currentThread().interrupt();
+      }
+
+      this.dispatcher.shutdownNow();
+      this.plugin.getLogger().warning("Timed out saving tag nodes to LuckPerms on shutdown.");
+   }
+
+   private static final class NodeBatch {
+      final Set<String> grant = new HashSet();
+      final Set<String> revoke = new HashSet();
+
+      void merge(Collection<String> grant, Collection<String> revoke) {
+         for (String id : grant) {
+            this.revoke.remove(id);
+            this.grant.add(id);
+         }
+
+         for (String id : revoke) {
+            this.grant.remove(id);
+            this.revoke.add(id);
+         }
+
+      }
+   }
 }
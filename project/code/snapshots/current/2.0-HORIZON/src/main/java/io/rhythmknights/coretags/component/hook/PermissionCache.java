@@ -0,0 +1,158 @@
+package io.rhythmknights.coretags.component.hook;
+
+import io.rhythmknights.coretags.CoreTags;
+import io.rhythmknights.coretags.component.modal.CategoryModal;
+import io.rhythmknights.coretags.component.modal.TagModal;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.model.user.User;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Per-player snapshot of every tag and category permission, checked in one pass and then
+ * answered from memory. Every check goes through {@link Player#hasPermission(String)}, so
+ * ops and plugin.yml defaults resolve exactly as they do for the rest of the server. With
+ * LuckPerms loaded for the player a snapshot lives until LuckPerms recalculates that user
+ * or the player's op status changes; without it a snapshot expires after
+ * {@link #FALLBACK_TTL_MILLIS}, since Bukkit has no event for permission changes.
+ */
+public final class PermissionCache implements Listener {
+   private static final long FALLBACK_TTL_MILLIS = 10000L;
+   private final CoreTags plugin;
+   private final LuckPerms lp;
+   private final Map<UUID, PermissionCache.Snapshot> snapshots = new ConcurrentHashMap();
+   private final Map<UUID, Long> generations = new ConcurrentHashMap();
+   private final AtomicLong epoch = new AtomicLong();
+
+   public PermissionCache(CoreTags plugin) {
+      this.plugin = plugin;
+      this.lp = plugin.luckPerms().api();
+      if (this.lp != null) {
+         this.lp.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, this::onRecalculate);
+      }
+
+      Bukkit.getPluginManager().registerEvents(this, plugin);
+   }
+
+   /**
+    * Returns the permission snapshot for {@code player}, computing it if there is none,
+    * it has expired, or tags or categories were reloaded since it was taken. A snapshot
+    * is only cached if that player was not invalidated while it was being computed, so a
+    * recalculation for one player never discards another player's work.
+    */
+   public PermissionCache.Snapshot get(Player player) {
+      TagModal tags = this.plugin.tags();
+      CategoryModal cats = this.plugin.categories();
+      UUID uuid = player.getUniqueId();
+      PermissionCache.Snapshot snapshot = (PermissionCache.Snapshot)this.snapshots.get(uuid);
+      if (snapshot != null && snapshot.tagVersion == tags.version() && snapshot.categoryVersion == cats.version() && snapshot.op == player.isOp() && System.currentTimeMillis() < snapshot.expires) {
+         return snapshot;
+      } else {
+         long epoch = this.epoch.get();
+         Long generation = (Long)this.generations.get(uuid);
+         snapshot = this.compute(player, tags, cats);
+         if (this.epoch.get() == epoch && Objects.equals(this.generations.get(uuid), generation) && player.isOnline()) {
+            this.snapshots.put(uuid, snapshot);
+         }
+
+         return snapshot;
+      }
+   }
+
+   private PermissionCache.Snapshot compute(Player player, TagModal tags, CategoryModal cats) {
+      int tagVersion = tags.version();
+      int categoryVersion = cats.version();
+      boolean op = player.isOp();
+      User user = this.lp == null ? null : this.lp.getUserManager().getUser(player.getUniqueId());
+      long expires = user != null ? Long.MAX_VALUE : System.currentTimeMillis() + FALLBACK_TTL_MILLIS;
+      Predicate<String> check = player::hasPermission;
+
+      BitSet allowedTags = new BitSet();
+
+      for (TagModal.Tag tag : tags.all()) {
+         if (check.test(tag.permission())) {
+            allowedTags.set(tag.ordinal());
+         }
+      }
+
+      Set<String> allowedCategories = new HashSet();
+
+      for (CategoryModal.TagCategory category : cats.all()) {
+         if (check.test(category.permission())) {
+            allowedCategories.add(category.key());
+         }
+      }
+
+      return new PermissionCache.Snapshot(allowedTags, allowedCategories, tagVersion, categoryVersion, op, expires);
+   }
+
+   public void invalidate(UUID uuid) {
+      this.generations.merge(uuid, 1L, Long::sum);
+      this.snapshots.remove(uuid);
+   }
+
+   public void invalidateAll() {
+      this.epoch.incrementAndGet();
+      this.snapshots.clear();
+   }
+
+   private void onRecalculate(UserDataRecalculateEvent e) {
+      this.invalidate(e.getUser().getUniqueId());
+   }
+
+   @EventHandler
+   public void onWorldChange(PlayerChangedWorldEvent e) {
+      this.invalidate(e.getPlayer().getUniqueId());
+   }
+
+   @EventHandler
+   public void onQuit(PlayerQuitEvent e) {
+      UUID uuid = e.getPlayer().getUniqueId();
+      this.snapshots.remove(uuid);
+      this.generations.remove(uuid);
+   }
+
+   /**
+    * Immutable set of the tags and categories one player may use. Snapshots are replaced,
+    * never changed, so callers may key derived data on the instance.
+    */
+   public static final class Snapshot {
+      private final BitSet tags;
+      private final Set<String> categories;
+      private final int tagVersion;
+      private final int categoryVersion;
+      private final boolean op;
+      private final long expires;
+
+      private Snapshot(BitSet tags, Set<String> categories, int tagVersion, int categoryVersion, boolean op, long expires) {
+         this.tags = tags;
+         this.categories = categories;
+         this.tagVersion = tagVersion;
+         this.categoryVersion = categoryVersion;
+         this.op = op;
+         this.expires = expires;
+      }
+
+      public boolean tag(TagModal.Tag tag) {
+         return this.tags.get(tag.ordinal());
+      }
+
+      public boolean category(CategoryModal.TagCategory category) {
+         return this.categories.contains(category.key());
+      }
+   }
+}
@@ -6,11 +6,9 @@ import io.rhythmknights.coretags.component.data.PlayerDataModule;
 import io.rhythmknights.coretags.component.modal.TagModal;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
-import net.kyori.adventure.text.Component;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.Method;
 import java.util.Locale;
 import java.util.Optional;
 
@@ -46,10 +44,6 @@ public final class PlaceholderHook extends PlaceholderExpansion {
         return plugin.getDescription().getVersion();
     }
 
-    public void refreshAll() {
-        // Placeholder refresh logic if needed
-    }
-
     @Override
     public String onRequest(OfflinePlayer player, @NotNull String params) {
         if (player == null) {
@@ -83,7 +77,7 @@ public final class PlaceholderHook extends PlaceholderExpansion {
     }
 
     private String formattedName(String id) {
-        return tags.byId(id).map(tag -> componentToLegacyString(tag.name())).orElse("");
+        return tags.byId(id).map(tag -> tag.nameText().legacy()).orElse("");
     }
 
     private String costString(String id) {
@@ -103,8 +97,8 @@ public final class PlaceholderHook extends PlaceholderExpansion {
         }
 
         PlayerDataModule.PlayerData pd = data.get(player.getUniqueId());
-        boolean unlocked = pd.unlocked.contains(id) || tag.cost() == 0 || !plugin.economy().active();
-        boolean hasPerm = player.isOnline() && player.getPlayer() != null && player.getPlayer().hasPermission(tag.permission());
+        boolean unlocked = pd.unlocked.containsOrdinal(tag.ordinal()) || tag.cost() == 0 || !plugin.economy().active();
+        boolean hasPerm = player.isOnline() && player.getPlayer() != null && plugin.permissions().get(player.getPlayer()).tag(tag);
 
         ConfigModule.GameState state;
         if (!player.isOp() && !hasPerm) {
@@ -126,32 +120,6 @@ public final class PlaceholderHook extends PlaceholderExpansion {
             return "";
         }
 
-        return tags.byId(id).map(tag -> componentToLegacyString(tag.display())).orElse("");
-    }
-
-    private String componentToLegacyString(Component component) {
-        try {
-            // Use CoreFramework TextUtility to convert Component to legacy string
-            Class<?> textUtilityClass = Class.forName("io.rhythmknights.coreframework.component.utility.TextUtility");
-            
-            // Try to find a method that can serialize Components to legacy format
-            // First try using Legacy utility class
-            try {
-                Class<?> legacyClass = Class.forName("io.rhythmknights.coreapi.component.utility.Legacy");
-                Object serializer = legacyClass.getField("SERIALIZER").get(null);
-                Method serializeMethod = serializer.getClass().getMethod("serialize", Component.class);
-                return (String) serializeMethod.invoke(serializer, component);
-            } catch (Exception ignored) {
-                // Fallback to LegacyComponentSerializer
-                Class<?> legacySerializerClass = Class.forName("net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer");
-                Method legacyAmpersandMethod = legacySerializerClass.getMethod("legacyAmpersand");
-                Object legacySerializer = legacyAmpersandMethod.invoke(null);
-                Method serializeMethod = legacySerializerClass.getMethod("serialize", Component.class);
-                return (String) serializeMethod.invoke(legacySerializer, component);
-            }
-        } catch (Exception e) {
-            // Final fallback - return string representation
-            return component.toString();
-        }
+        return tags.byId(id).map(tag -> tag.displayText().legacy()).orElse("");
     }
 }
\ No newline at end of file
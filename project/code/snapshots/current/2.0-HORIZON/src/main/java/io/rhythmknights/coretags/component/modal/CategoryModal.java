@@ -3,14 +3,17 @@ package io.rhythmknights.coretags.component.modal;
 import io.rhythmknights.coretags.CoreTags;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Material;
@@ -20,36 +23,91 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 public final class CategoryModal {
    private final CoreTags plugin;
-   private final Map<String, CategoryModal.TagCategory> byKey = new HashMap();
+   private final AtomicReference<CategoryModal.Snapshot> snapshot = new AtomicReference(new CategoryModal.Snapshot("", new YamlConfiguration(), Map.of()));
+   private volatile int version;
+   private long reads;
+   private long published;
    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacyAmpersand();
    private final File ymlFile;
 
    public CategoryModal(CoreTags plugin) {
       this.plugin = plugin;
       this.ymlFile = new File(plugin.getDataFolder(), "components/categories.yml");
-      plugin.saveResource("components/categories.yml", false);
+      if (!this.ymlFile.exists()) {
+         plugin.saveResource("components/categories.yml", false);
+      }
+
       this.reload();
    }
 
    public void reload() {
-      this.byKey.clear();
-      YamlConfiguration yaml = new YamlConfiguration();
-
       try {
-         yaml.load(this.ymlFile);
-      } catch (IOException | InvalidConfigurationException var12) {
-         this.plugin.getLogger().severe("Failed to load components/categories.yml: " + var12.getMessage());
-         return;
+         this.prepareUpdate().getAsBoolean();
+      } catch (IOException | InvalidConfigurationException var2) {
+         this.plugin.getLogger().severe("Failed to load components/categories.yml: " + var2.getMessage());
+      }
+
+   }
+
+   /**
+    * Reads categories.yml and builds the category set without publishing it. Safe to
+    * call off the main thread; the returned action swaps the result in.
+    */
+   public Runnable prepareReload() throws IOException, InvalidConfigurationException {
+      BooleanSupplier update = this.prepareUpdate();
+      return update::getAsBoolean;
+   }
+
+   /**
+    * Like {@link #prepareReload()}, but the returned action reports whether it replaced
+    * the published categories with different ones. Each read is numbered, so whichever
+    * of the watcher and {@code /coretags reload} read categories.yml last is the one that
+    * stays published, whatever order their main-thread tasks run in.
+    */
+   public BooleanSupplier prepareUpdate() throws IOException, InvalidConfigurationException {
+      long read;
+      String source;
+      synchronized(this) {
+         read = ++this.reads;
+         source = Files.readString(this.ymlFile.toPath());
+      }
+
+      CategoryModal.Snapshot current = (CategoryModal.Snapshot)this.snapshot.get();
+      CategoryModal.Snapshot next = source.equals(current.source) ? current : this.build(source);
+      return () -> {
+         return this.publish(next, read);
+      };
+   }
+
+   /** Publishes {@code next} unless a later read has already been published. Main thread only. */
+   private boolean publish(CategoryModal.Snapshot next, long read) {
+      if (read <= this.published) {
+         return false;
+      } else {
+         this.published = read;
+         if (next.source.equals(((CategoryModal.Snapshot)this.snapshot.get()).source)) {
+            return false;
+         } else {
+            this.snapshot.set(next);
+            ++this.version;
+            this.plugin.getLogger().info("Loaded " + next.byKey.size() + " tag categories.");
+            return true;
+         }
       }
+   }
 
+   private CategoryModal.Snapshot build(String source) throws InvalidConfigurationException {
+      YamlConfiguration yaml = new YamlConfiguration();
+      yaml.loadFromString(source);
+      Map<String, CategoryModal.TagCategory> out = new LinkedHashMap();
       ConfigurationSection root = yaml.getConfigurationSection("settings.categories");
       if (root == null) {
          this.plugin.getLogger().warning("No 'settings.categories' root found in categories.yml.");
       } else {
-         Iterator var3 = root.getKeys(false).iterator();
+         Iterator var4 = root.getKeys(false).iterator();
 
-         while(var3.hasNext()) {
-            String key = (String)var3.next();
+         while(var4.hasNext()) {
+            String key = (String)var4.next();
             ConfigurationSection cs = root.getConfigurationSection(key);
             if (cs != null) {
                int slot = cs.getInt("slot", -1);
@@ -61,14 +119,13 @@ public final class CategoryModal {
                   }).toList();
                   String perm = cs.getString("permission", "coretags.category." + key.toLowerCase(Locale.ROOT));
                   boolean isProtected = cs.getBoolean("protected", false);
-                  this.byKey.put(key.toLowerCase(Locale.ROOT), new CategoryModal.TagCategory(key, slot, icon, displayName, lore, perm, isProtected));
+                  out.put(key.toLowerCase(Locale.ROOT), new CategoryModal.TagCategory(key, slot, icon, displayName, lore, perm, isProtected));
                }
             }
          }
-
-         this.plugin.getLogger().info("Loaded " + this.byKey.size() + " tag categories.");
       }
 
+      return new CategoryModal.Snapshot(source, yaml, Collections.unmodifiableMap(out));
    }
 
    private Material parseMaterial(String raw) {
@@ -79,12 +136,41 @@ public final class CategoryModal {
       }
    }
 
+   /** Incremented each time a new set of categories is published. */
+   public int version() {
+      return this.version;
+   }
+
    public Collection<CategoryModal.TagCategory> all() {
-      return Collections.unmodifiableCollection(this.byKey.values());
+      return ((CategoryModal.Snapshot)this.snapshot.get()).byKey.values();
    }
 
    public Optional<CategoryModal.TagCategory> byKey(String key) {
-      return Optional.ofNullable((CategoryModal.TagCategory)this.byKey.get(key.toLowerCase(Locale.ROOT)));
+      return Optional.ofNullable((CategoryModal.TagCategory)((CategoryModal.Snapshot)this.snapshot.get()).byKey.get(key.toLowerCase(Locale.ROOT)));
+   }
+
+   public YamlConfiguration rawConfig() {
+      return ((CategoryModal.Snapshot)this.snapshot.get()).config;
+   }
+
+   private static record Snapshot(String source, YamlConfiguration config, Map<String, CategoryModal.TagCategory> byKey) {
+      private Snapshot(String source, YamlConfiguration config, Map<String, CategoryModal.TagCategory> byKey) {
+         this.source = source;
+         this.config = config;
+         this.byKey = byKey;
+      }
+
+      public String source() {
+         return this.source;
+      }
+
+      public YamlConfiguration config() {
+         return this.config;
+      }
+
+      public Map<String, CategoryModal.TagCategory> byKey() {
+         return this.byKey;
+      }
    }
 
    public static record TagCategory(String key, int slot, Material icon, Component displayName, List<Component> lore, String permission, boolean isProtected) {
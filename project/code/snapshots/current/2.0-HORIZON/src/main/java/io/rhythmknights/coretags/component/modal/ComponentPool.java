@@ -0,0 +1,68 @@
+package io.rhythmknights.coretags.component.modal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+/**
+ * Interns the Components of one catalog build by their legacy source text, so tags that
+ * share a name, display or description line (blank lines, common flavour text) share one
+ * Component, and tags with identical descriptions share one list. Not thread-safe; each
+ * build uses its own pool.
+ */
+final class ComponentPool {
+   private final LegacyComponentSerializer serializer;
+   private final Map<String, Component> components = new HashMap();
+   private final Map<List<String>, List<Component>> lists = new HashMap();
+   private int references;
+
+   ComponentPool(LegacyComponentSerializer serializer) {
+      this.serializer = serializer;
+   }
+
+   Component component(String legacy) {
+      ++this.references;
+      return (Component)this.components.computeIfAbsent(legacy, this.serializer::deserialize);
+   }
+
+   List<Component> lines(List<String> legacy) {
+      List<Component> pooled = (List)this.lists.get(legacy);
+      if (pooled != null) {
+         this.references += legacy.size();
+         return pooled;
+      } else {
+         pooled = legacy.stream().map(this::component).toList();
+         this.lists.put(legacy, pooled);
+         return pooled;
+      }
+   }
+
+   /** Registers text a reused tag already holds, so new tags with the same source share it. */
+   void adopt(String legacy, Component component) {
+      ++this.references;
+      this.components.putIfAbsent(legacy, component);
+   }
+
+   void adopt(List<String> legacy, List<Component> components) {
+      if (this.lists.putIfAbsent(legacy, components) != null) {
+         this.references += legacy.size();
+      } else {
+         for (int i = 0; i < legacy.size(); ++i) {
+            this.adopt((String)legacy.get(i), (Component)components.get(i));
+         }
+      }
+
+   }
+
+   /** Number of text references handed out, counting every line of every list. */
+   int references() {
+      return this.references;
+   }
+
+   /** Number of distinct Components behind those references. */
+   int distinct() {
+      return this.components.size();
+   }
+}
@@ -0,0 +1,106 @@
+package io.rhythmknights.coretags.component.modal;
+
+import io.rhythmknights.coretags.CoreTags;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+/**
+ * Watches {@code components/} and applies edits to tags.yml and categories.yml without a
+ * full reload. Events are collected until the directory has been quiet for
+ * {@link #SETTLE_MILLIS}, the changed files are re-read on the watcher thread, and only
+ * the open GUIs showing an affected tag are redrawn on the main thread. Publishing goes
+ * through the same read-numbered step as {@code /coretags reload}, so an edit picked up
+ * here can never put back a catalog older than one a concurrent reload already applied.
+ */
+public final class ComponentWatcher {
+   private static final long SETTLE_MILLIS = 500L;
+   private final CoreTags plugin;
+   private final WatchService service;
+   private final Thread thread;
+
+   public ComponentWatcher(CoreTags plugin) throws IOException {
+      this.plugin = plugin;
+      Path dir = plugin.getDataFolder().toPath().resolve("components");
+      this.service = dir.getFileSystem().newWatchService();
+      dir.register(this.service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      this.thread = new Thread(this::run, "CoreTags-Watcher");
+      this.thread.setDaemon(true);
+      this.thread.start();
+   }
+
+   private void run() {
+      try {
+         while(true) {
+            WatchKey key = this.service.take();
+            boolean tags = false;
+            boolean categories = false;
+
+            do {
+               for (WatchEvent<?> event : key.pollEvents()) {
+                  if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                     tags = true;
+                     categories = true;
+                  } else {
+                     String name = ((Path)event.context()).getFileName().toString();
+                     tags |= name.equals("tags.yml");
+                     categories |= name.equals("categories.yml");
+                  }
+               }
+
+               key.reset();
+            } while((key = this.service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+            if (tags || categories) {
+               this.apply(tags, categories);
+            }
+         }
+      } catch (ClosedWatchServiceException | InterruptedException var4) {
+      }
+   }
+
+   private void apply(boolean tags, boolean categories) {
+      TagModal.Update tagUpdate;
+      BooleanSupplier categoryUpdate;
+      try {
+         categoryUpdate = categories ? this.plugin.categories().prepareUpdate() : null;
+         tagUpdate = tags ? this.plugin.tags().prepareUpdate() : null;
+      } catch (IOException | InvalidConfigurationException var7) {
+         this.plugin.getLogger().warning("Ignoring edit to components/, keeping the current tags: " + var7.getMessage());
+         return;
+      }
+
+      if (this.plugin.isEnabled()) {
+         Bukkit.getScheduler().runTask(this.plugin, () -> {
+            boolean categoriesChanged = categoryUpdate != null && categoryUpdate.getAsBoolean();
+            TagModal.Change change = tagUpdate == null ? TagModal.Change.NONE : tagUpdate.apply();
+            if (categoriesChanged || !change.isEmpty()) {
+               boolean everything = categoriesChanged || change.settingsChanged();
+               if (everything) {
+                  this.plugin.recompileSettings();
+               }
+
+               this.plugin.modalProcessor().refreshChanged(change.changed(), everything);
+               this.plugin.getLogger().info("Applied edits to components/ (" + change.changed().size() + " tag(s) changed).");
+            }
+         });
+      }
+   }
+
+   public void close() {
+      try {
+         this.service.close();
+      } catch (IOException var2) {
+      }
+
+      this.thread.interrupt();
+   }
+}
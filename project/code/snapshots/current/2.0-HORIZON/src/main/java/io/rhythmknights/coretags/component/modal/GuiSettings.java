@@ -0,0 +1,296 @@
+package io.rhythmknights.coretags.component.modal;
+
+import io.rhythmknights.coretags.component.data.ConfigModule;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Every setting the plugin reads at run time from config.yml, categories.yml and
+ * tags.yml, resolved into plain fields once per reload and published through
+ * {@link io.rhythmknights.coretags.CoreTags#settings()}. It is compiled from what
+ * {@link ConfigModule}, {@link CategoryModal} and {@link TagModal} publish, so each file
+ * is still parsed once by its owner; GUI renders, commands and messages read this copy
+ * instead of looking up YAML paths, and a missing or invalid value is reported here, at
+ * compile time, instead of on every use.
+ */
+public final class GuiSettings {
+    static final List<String> COLORS = List.of("ALL", "MULTI", "RED", "ORANGE", "YELLOW",
+        "GREEN", "BLUE", "PURPLE", "PINK", "BROWN", "GRAY", "BLACK", "WHITE");
+    static final List<String> BUILTIN_FILTERS = List.of("ALL", "FAVORITES", "UNLOCKED", "LOCKED", "PROTECTED");
+
+    // Behaviour
+    final String defaultView;
+    final boolean swapGlobal;
+    final ConfigModule.CloseCmd closeCmd;
+    final boolean sortedByDefault;
+    final List<Integer> tagSlots;
+
+    // Menus
+    final int categoryRows;
+    final int tagsRows;
+    final String categoryTitle;
+    final String tagsTitle;
+    final String searchTitle;
+    final int resetSlotCategory;
+    final int activeSlotCategory;
+    final int closeSlotCategory;
+    final int backSlotCategory;
+
+    // Buttons
+    final Button catBtn;
+    final Button favBtn;
+    final Button prevBtn;
+    final Button nextBtn;
+    final Button resetBtn;
+    final Button backBtn;
+    final Button closeBtn;
+    final Button activeBtn;
+    final Button colorSortBtn;
+    final boolean colorSwitchMaterial;
+    final boolean categorySwitchMaterial;
+    final Map<String, NavText> nav;
+
+    // Tag items
+    final Map<ConfigModule.GameState, List<String>> tagLore;
+    final String favoriteMsgAdd;
+    final String favoriteMsgRemove;
+    final String favoriteStateEnabled;
+    final String favoriteStateDisabled;
+    final String emptyTagName;
+
+    // Filters and sorting
+    final List<String> categoryFilters;
+    final Map<String, String> filterNames;
+    final Map<String, String> categoryNames;
+    final Map<String, Material> filterMaterials;
+    final Map<String, String> sortNames;
+    final Map<String, String> colorNames;
+    final Map<String, Material> colorMaterials;
+
+    // Messages
+    final String msgTagReset;
+    final String msgTagActivate;
+    final String msgTagLocked;
+    final String msgTagBalance;
+    final String msgTagUnlocked;
+    public final String msgCommandUnlocked;
+    public final String msgCommandLocked;
+    public final String msgTagAuthorize;
+    public final String msgTagRevoke;
+    public final String reloadPrefix;
+    /** The configured reload message, or {@code null} to let the sender pick its default. */
+    public final String msgReload;
+
+    private GuiSettings(FileConfiguration config, ConfigModule cfg, FileConfiguration catCfg, FileConfiguration tagCfg,
+                        Collection<CategoryModal.TagCategory> categories, Logger logger) {
+        this.defaultView = cfg.defaultView();
+        this.swapGlobal = cfg.closeButtonSwap();
+        this.closeCmd = cfg.closeCmd();
+        this.sortedByDefault = config.getString("settings.system.favorites-sort", "UNSORTED").equalsIgnoreCase("SORTED");
+        this.tagSlots = cfg.guiSlots();
+
+        String items = "settings.gui.layout.items.";
+        String titles = "settings.gui.layout.titles.";
+        this.categoryRows = config.getInt("settings.gui.category-menu.rows", 4);
+        this.tagsRows = config.getInt("settings.gui.tags-menu.rows", 6);
+        this.categoryTitle = config.getString(titles + "category-gui-name", "Tags | Categories");
+        this.tagsTitle = config.getString(titles + "tags-gui-name", "Tags | {category} ({currentpage}/{totalpages})");
+        this.searchTitle = config.getString(titles + "search-filter-name", "&7Search &8• &f{query}");
+        this.resetSlotCategory = config.getInt(items + "reset-button-slot-category", -1);
+        this.activeSlotCategory = config.getInt(items + "active-tag-item-slot-category", -1);
+        this.closeSlotCategory = config.getInt(items + "close-button-slot-category", -1);
+        this.backSlotCategory = config.getInt(items + "back-button-slot-category", -1);
+
+        this.catBtn = new Button(mat(config, "category-sort-button-material", logger), config.getInt(items + "category-sort-button-slot", 0));
+        this.favBtn = new Button(mat(config, "favorite-sort-button-material", logger), config.getInt(items + "favorite-sort-button-slot", 0));
+        this.prevBtn = new Button(mat(config, "last-page-button-material", logger), config.getInt(items + "last-page-button-slot", 0));
+        this.nextBtn = new Button(mat(config, "next-page-button-material", logger), config.getInt(items + "next-page-button-slot", 0));
+        this.resetBtn = new Button(mat(config, "reset-button-material", logger), config.getInt(items + "reset-button-slot-tags", 0));
+        this.backBtn = new Button(mat(config, "back-button-material", logger), config.getInt(items + "back-button-slot-tags", 0));
+        this.closeBtn = new Button(mat(config, "close-button-material", logger), config.getInt(items + "close-button-slot-tags", 0));
+        this.activeBtn = new Button(mat(config, "active-tag-material", logger), config.getInt(items + "active-tag-item-slot-tags", 0));
+        this.colorSortBtn = new Button(mat(config, "color-sort-button-material", logger), config.getInt(items + "color-sort-button-slot", 0));
+        this.colorSwitchMaterial = config.getBoolean("settings.gui.layout.materials.color-sort-button-material.material-switch", false);
+        this.categorySwitchMaterial = config.getBoolean("settings.gui.layout.materials.category-sort-button-material.material-switch", false);
+
+        Map<String, NavText> nav = new HashMap<>();
+        for (String key : List.of("category-sort-button", "favorite-sort-button", "color-sort-button", "last-page-button",
+                "next-page-button", "reset-button", "back-button", "close-button", "active-tag")) {
+            String title;
+            if (key.equals("category-sort-button")) {
+                title = catCfg.getString("settings.system.category-sort.sort-button.name", "&7CATEGORY &8• {filter}");
+            } else if (key.equals("favorite-sort-button")) {
+                title = catCfg.getString("settings.system.favorites-sort.sort-button.name", "&7FAVORITES &8• {sort}");
+            } else {
+                title = config.getString(titles + key + "-name", "MISSING_TITLE_" + key);
+            }
+
+            ConfigurationSection loreSec = config.getConfigurationSection("settings.gui.layout.lore." + key + "-lore");
+            List<String> lore = loreSec != null && loreSec.getBoolean("enabled", false) ? List.copyOf(loreSec.getStringList("lore")) : null;
+            boolean glint = config.getBoolean("settings.gui.layout.materials." + key + "-material.enchantment-glint", false);
+            nav.put(key, new NavText(title, lore, glint));
+        }
+        this.nav = Collections.unmodifiableMap(nav);
+
+        Map<ConfigModule.GameState, List<String>> tagLore = new EnumMap<>(ConfigModule.GameState.class);
+        for (ConfigModule.GameState state : ConfigModule.GameState.values()) {
+            String name = switch (state) {
+                case ACTIVE -> "active";
+                case LOCKED -> "locked";
+                case UNLOCKED -> "unlocked";
+                default -> "protected";
+            };
+            tagLore.put(state, List.copyOf(config.getStringList("settings.gui.tags.tag-items." + name + "-lore")));
+        }
+        this.tagLore = Collections.unmodifiableMap(tagLore);
+        this.favoriteMsgAdd = tagCfg.getString("settings.system.favorite.msg.add", "");
+        this.favoriteMsgRemove = tagCfg.getString("settings.system.favorite.msg.remove", "");
+        this.favoriteStateEnabled = tagCfg.getString("settings.system.favorite.state.enabled", "");
+        this.favoriteStateDisabled = tagCfg.getString("settings.system.favorite.state.disabled", "");
+        this.emptyTagName = tagCfg.getString("settings.system.empty-tag.name", "None");
+
+        List<String> filters = new ArrayList<>(BUILTIN_FILTERS);
+        categories.forEach(c -> filters.add(c.key().toUpperCase(Locale.ROOT)));
+        this.categoryFilters = List.copyOf(filters);
+
+        Map<String, String> filterNames = new HashMap<>();
+        ConfigurationSection filterSec = catCfg.getConfigurationSection("settings.system.category-sort.filters");
+        if (filterSec != null) {
+            for (String key : filterSec.getKeys(false)) {
+                String name = filterSec.getString(key + ".name");
+                if (name != null) {
+                    filterNames.put(key.toLowerCase(Locale.ROOT), name);
+                }
+            }
+        }
+        this.filterNames = Collections.unmodifiableMap(filterNames);
+
+        Map<String, String> categoryNames = new HashMap<>();
+        Map<String, Material> filterMaterials = new HashMap<>();
+        for (String filter : filters) {
+            String lower = filter.toLowerCase(Locale.ROOT);
+            boolean builtin = BUILTIN_FILTERS.contains(filter);
+            if (!builtin) {
+                String name = catCfg.getString("settings.categories." + lower + ".name");
+                if (name != null) {
+                    categoryNames.put(lower, name);
+                }
+            }
+
+            String path = "settings.gui.layout.materials.category-sort-button-switch-material.material." + lower + ".material";
+            Material material = parseMaterial(config.getString(path), "switch material", filter, logger);
+            if (material == null && !builtin) {
+                material = parseMaterial(catCfg.getString("settings.categories." + lower + ".material"), "material", filter, logger);
+            }
+            filterMaterials.put(lower, material != null ? material : this.catBtn.mat());
+        }
+        this.categoryNames = Collections.unmodifiableMap(categoryNames);
+        this.filterMaterials = Collections.unmodifiableMap(filterMaterials);
+
+        Map<String, String> sortNames = new HashMap<>();
+        for (String sort : List.of("sorted", "unsorted")) {
+            sortNames.put(sort, catCfg.getString("settings.system.favorites-sort.sort-type." + sort + ".name", sort));
+        }
+        this.sortNames = Collections.unmodifiableMap(sortNames);
+
+        Map<String, String> colorNames = new HashMap<>();
+        Map<String, Material> colorMaterials = new HashMap<>();
+        for (String color : COLORS) {
+            String lower = color.toLowerCase(Locale.ROOT);
+            colorNames.put(lower, config.getString("settings.system.colors." + lower + ".text", color));
+            String path = "settings.gui.layout.materials.color-sort-button-switch-material.material." + lower + ".material";
+            Material material = parseMaterial(config.getString(path), "switch material", color, logger);
+            colorMaterials.put(lower, material != null ? material : this.colorSortBtn.mat());
+        }
+        this.colorNames = Collections.unmodifiableMap(colorNames);
+        this.colorMaterials = Collections.unmodifiableMap(colorMaterials);
+
+        this.msgTagReset = config.getString("settings.messages.tag-reset", "");
+        this.msgTagActivate = config.getString("settings.messages.tag-activate", "");
+        this.msgTagLocked = config.getString("settings.messages.tag-locked", "");
+        this.msgTagBalance = config.getString("settings.messages.tag-balance", "Insufficient funds. You need {cost} to unlock the {tag} tag.");
+        this.msgTagUnlocked = config.getString("settings.messages.tag-unlocked", "");
+        this.msgCommandUnlocked = config.getString("settings.messages.tag-unlocked", "<green>{tag}</green> <gray>has been unlocked.</gray>");
+        this.msgCommandLocked = config.getString("settings.messages.tag-locked", "<red>{tag}</red> <gray>has been locked.</gray>");
+        this.msgTagAuthorize = config.getString("settings.messages.tag-authorize", "<gold>{tag}</gold> <gray>tag</gray> <green>unlocked</green> <gray>for</gray> <blue>{player}</blue>.");
+        this.msgTagRevoke = config.getString("settings.messages.tag-revoke", "<gold>{tag}</gold> <gray>tag</gray> <red>locked</red> <gray>for</gray> <blue>{player}</blue>.");
+        this.reloadPrefix = config.getBoolean("settings.messages.enable-prefix", false) ? config.getString("settings.messages.prefix", "") : "";
+        this.msgReload = config.getString("settings.messages.msg-reload");
+    }
+
+    /**
+     * Compiles the settings from the currently published config, categories and tags.
+     * Call after every reload of any of the three files.
+     */
+    public static GuiSettings compile(FileConfiguration config, ConfigModule cfg, CategoryModal cats, TagModal tags, Logger logger) {
+        return new GuiSettings(config, cfg, cats.rawConfig(), tags.rawConfig(), cats.all(), logger);
+    }
+
+    private static Material mat(FileConfiguration config, String key, Logger logger) {
+        String base = "settings.gui.layout.materials.";
+        ConfigurationSection sec = config.getConfigurationSection(base + key);
+        if (sec == null) {
+            logger.warning("Missing config for '" + base + key + "'");
+            return Material.STONE;
+        }
+
+        String raw = sec.getString("material");
+        try {
+            return Material.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (Exception e) {
+            logger.warning("Invalid material '" + raw + "' at '" + base + key + "'");
+            return Material.STONE;
+        }
+    }
+
+    private static Material parseMaterial(String raw, String what, String owner, Logger logger) {
+        if (raw == null) {
+            return null;
+        }
+
+        try {
+            return Material.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid " + what + " '" + raw + "' for '" + owner + "'");
+            return null;
+        }
+    }
+
+    String filterDisplayName(String filter) {
+        String lower = filter.toLowerCase(Locale.ROOT);
+        String name = filterNames.get(lower);
+        if (name == null && !BUILTIN_FILTERS.contains(filter.toUpperCase(Locale.ROOT))) {
+            name = categoryNames.get(lower);
+        }
+        return name != null ? name : filter;
+    }
+
+    Material filterMaterial(String filter) {
+        return filterMaterials.getOrDefault(filter.toLowerCase(Locale.ROOT), catBtn.mat());
+    }
+
+    String colorDisplayName(String color) {
+        return colorNames.getOrDefault(color.toLowerCase(Locale.ROOT), color);
+    }
+
+    Material colorMaterial(String color) {
+        return colorMaterials.getOrDefault(color.toLowerCase(Locale.ROOT), colorSortBtn.mat());
+    }
+
+    record Button(Material mat, int slot) {}
+
+    /** Title, optional lore ({@code null} when disabled) and glint of a navigation button. */
+    record NavText(String title, List<String> lore, boolean glint) {}
+}
@@ -6,10 +6,12 @@ import io.rhythmknights.coreapi.modal.builder.item.ItemBuilder;
 import io.rhythmknights.coretags.CoreTags;
 import io.rhythmknights.coretags.component.data.ConfigModule;
 import io.rhythmknights.coretags.component.data.PlayerDataModule;
+import io.rhythmknights.coretags.component.data.TagSet;
+import io.rhythmknights.coretags.component.hook.PermissionCache;
 import io.rhythmknights.coretags.component.hook.VaultHook;
 
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -20,8 +22,6 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -35,11 +35,6 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
-
 public final class ModalProcessor implements Listener {
     private final CoreTags plugin;
     private final ConfigModule cfg;
@@ -47,28 +42,12 @@ public final class ModalProcessor implements Listener {
     private final TagModal tags;
     private final PlayerDataModule data;
     private final VaultHook eco;
-    private final FileConfiguration catCfg;
-    private final FileConfiguration tagCfg;
-    private final String defaultView;
-    private final boolean swapGlobal;
-    private final ConfigModule.CloseCmd closeCfg;
+    private final PermissionCache perms;
     private final Map<UUID, GuiSession> open = new HashMap<>();
-
-    // Button configurations
-    private Btn catBtn;
-    private Btn favBtn;
-    private Btn prevBtn;
-    private Btn nextBtn;
-    private Btn resetBtn;
-    private Btn backBtn;
-    private Btn closeBtn;
-    private Btn activeBtn;
-    private Btn colorSortBtn;
-    private boolean colorSwitchMaterial;
-    private boolean categorySwitchMaterial;
-
-    private static final List<String> COLORS = List.of("ALL", "MULTI", "RED", "ORANGE", "YELLOW", 
-        "GREEN", "BLUE", "PURPLE", "PINK", "BROWN", "GRAY", "BLACK", "WHITE");
+    private final Map<Integer, TagItems> tagItems = new HashMap<>();
+    private final Map<String, Map<String, ItemStack>> navItems = new HashMap<>();
+    private final Map<CategoryModal.TagCategory, ItemStack> categoryItems = new HashMap<>();
+    private GuiSettings gui;
 
     public ModalProcessor(CoreTags pl) {
         this.plugin = pl;
@@ -77,52 +56,51 @@ public final class ModalProcessor implements Listener {
         this.tags = pl.tags();
         this.data = pl.playerData();
         this.eco = pl.economy();
-        this.defaultView = plugin.getConfig().getString("settings.system.default-view", "category").toLowerCase(Locale.ROOT);
-        this.swapGlobal = plugin.getConfig().getBoolean("settings.system.close-button-swap", true);
-        this.closeCfg = cfg.closeCmd();
-
-        File catFile = new File(plugin.getDataFolder(), "components/categories.yml");
-        this.catCfg = YamlConfiguration.loadConfiguration(catFile);
-        File tagFile = new File(plugin.getDataFolder(), "components/tags.yml");
-        this.tagCfg = YamlConfiguration.loadConfiguration(tagFile);
+        this.perms = pl.permissions();
 
-        loadButtonMeta();
+        reloadLayout();
         Bukkit.getPluginManager().registerEvents(this, plugin);
     }
 
-    private void loadButtonMeta() {
-        String base = "settings.gui.layout.items.";
-        this.catBtn = new Btn(mat("category-sort-button-material"), slot(base + "category-sort-button-slot"));
-        this.favBtn = new Btn(mat("favorite-sort-button-material"), slot(base + "favorite-sort-button-slot"));
-        this.prevBtn = new Btn(mat("last-page-button-material"), slot(base + "last-page-button-slot"));
-        this.nextBtn = new Btn(mat("next-page-button-material"), slot(base + "next-page-button-slot"));
-        this.resetBtn = new Btn(mat("reset-button-material"), slot(base + "reset-button-slot-tags"));
-        this.backBtn = new Btn(mat("back-button-material"), slot(base + "back-button-slot-tags"));
-        this.closeBtn = new Btn(mat("close-button-material"), slot(base + "close-button-slot-tags"));
-        this.activeBtn = new Btn(mat("active-tag-material"), slot(base + "active-tag-item-slot-tags"));
-        this.colorSortBtn = new Btn(mat("color-sort-button-material"), slot(base + "color-sort-button-slot"));
-        
-        this.colorSwitchMaterial = plugin.getConfig().getBoolean("settings.gui.layout.materials.color-sort-button-material.material-switch", false);
-        this.categorySwitchMaterial = plugin.getConfig().getBoolean("settings.gui.layout.materials.category-sort-button-material.material-switch", false);
+    /**
+     * Picks up the {@link GuiSettings} the plugin last compiled and drops every item built
+     * from the previous ones. Call after the settings are recompiled; renders only ever
+     * read the compiled copy.
+     */
+    public void reloadLayout() {
+        this.gui = plugin.settings();
+        tagItems.clear();
+        navItems.clear();
+        categoryItems.clear();
+        compileNavButtons();
     }
 
-    public void reloadFileConfigs() {
-        plugin.reloadConfig();
-        File catFile = new File(plugin.getDataFolder(), "components/categories.yml");
-        try {
-            ((YamlConfiguration) catCfg).load(catFile);
-        } catch (InvalidConfigurationException | IOException e) {
-            plugin.getLogger().severe("Could not reload components/categories.yml: " + e.getMessage());
+    /** Builds every nav button state that can be known before a player opens the GUI. */
+    private void compileNavButtons() {
+        GuiSettings gui = this.gui;
+        navStack("last-page-button", "", gui.prevBtn.mat(), Map.of());
+        navStack("next-page-button", "", gui.nextBtn.mat(), Map.of());
+        navStack("reset-button", "", gui.resetBtn.mat(), Map.of());
+        navStack("back-button", "", gui.backBtn.mat(), Map.of());
+        navStack("close-button", "", gui.closeBtn.mat(), Map.of());
+        navStack("active-tag", gui.emptyTagName, gui.activeBtn.mat(), Map.of("tag", gui.emptyTagName));
+
+        for (String filter : gui.categoryFilters) {
+            Material mat = gui.categorySwitchMaterial ? gui.filterMaterial(filter) : gui.catBtn.mat();
+            String name = gui.filterDisplayName(filter);
+            navStack("category-sort-button", filter.toLowerCase(Locale.ROOT), mat, Map.of("filter", name, "category", name));
         }
 
-        File tagFile = new File(plugin.getDataFolder(), "components/tags.yml");
-        try {
-            ((YamlConfiguration) tagCfg).load(tagFile);
-        } catch (InvalidConfigurationException | IOException e) {
-            plugin.getLogger().severe("Could not reload components/tags.yml: " + e.getMessage());
+        for (String sortType : List.of("sorted", "unsorted")) {
+            String name = gui.sortNames.get(sortType);
+            navStack("favorite-sort-button", sortType, gui.favBtn.mat(), Map.of("sort", name, "sorting", name));
         }
 
-        loadButtonMeta();
+        for (String color : GuiSettings.COLORS) {
+            Material mat = gui.colorSwitchMaterial ? gui.colorMaterial(color) : gui.colorSortBtn.mat();
+            String name = gui.colorDisplayName(color);
+            navStack("color-sort-button", color.toLowerCase(Locale.ROOT), mat, Map.of("color", name));
+        }
     }
 
     public void refreshAll() {
@@ -135,115 +113,141 @@ public final class ModalProcessor implements Listener {
         open.clear();
     }
 
+    /**
+     * Redraws the open GUIs affected by an incremental tag or category update, keeping
+     * each viewer's page, filter and sort. A tags view is redrawn only if a changed tag
+     * was on its page or is now, a category view only if it names a changed active tag;
+     * {@code everything} redraws all of them.
+     */
+    public void refreshChanged(Set<String> changed, boolean everything) {
+        for (Map.Entry<UUID, GuiSession> entry : new ArrayList<>(open.entrySet())) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player == null) {
+                continue;
+            }
+
+            GuiSession session = entry.getValue();
+            boolean affected = everything || changed.contains(data.get(player.getUniqueId()).active);
+            if (session.type == GuiType.CATEGORY) {
+                if (affected) {
+                    openCategoryGui(player);
+                }
+                continue;
+            }
+
+            if (!affected) {
+                List<TagModal.Tag> src = applyFilterAndSort(player, session);
+                int perPage = gui.tagSlots.size();
+                int from = Math.min(session.page * perPage, src.size());
+                affected = session.shown.stream().anyMatch(changed::contains)
+                    || src.subList(from, Math.min(from + perPage, src.size())).stream().anyMatch(t -> changed.contains(t.id()));
+            }
+            if (affected) {
+                openTagsGui(player, null, -999);
+            }
+        }
+    }
+
     public void openCategoryGui(Player player) {
         try {
-            int rows = plugin.getConfig().getInt("settings.gui.category-menu.rows", 4);
-            String titlePattern = plugin.getConfig().getString("settings.gui.layout.titles.category-gui-name", "Tags | Categories");
-            
-            // Use CoreFramework TextUtility directly
-            Component title = parseText(titlePattern);
-            
-            // Use BaseModal instead of Modal
-            BaseModal modal = io.rhythmknights.coreapi.component.modal.Modal.modal()
-                .title(title)
-                .rows(rows)
-                .disableAllInteractions()
-                .create();
+            GuiSettings gui = this.gui;
+            GuiSession current = open.get(player.getUniqueId());
+            GuiSession session = current != null && current.type == GuiType.CATEGORY
+                ? current
+                : new GuiSession(GuiType.CATEGORY, 0, "ALL", gui.sortedByDefault ? Sort.SORTED : Sort.UNSORTED, "ALL");
+            if (current != null && session != current) {
+                // Switching views: keep the open window so the layout can be patched into it
+                session.modal = current.modal;
+                session.title = current.title;
+                session.rows = current.rows;
+                session.sources = current.sources;
+                session.items = current.items;
+            }
+            Page layout = new Page(session);
 
             // Add category items
+            PermissionCache.Snapshot snapshot = perms.get(player);
             cats.all().stream()
-                .filter(c -> player.hasPermission(c.permission()))
+                .filter(snapshot::category)
                 .sorted(Comparator.comparingInt(CategoryModal.TagCategory::slot))
-                .forEach(c -> {
-                    // Use components directly - they're already parsed in CategoryModal
-                    Component name = c.displayName();
-                    List<Component> lore = c.lore();
-                    
-                    ModalItem item = ItemBuilder.from(c.icon())
-                        .name(name)
-                        .lore(lore)
-                        .asModalItem(event -> {
-                            Bukkit.getScheduler().runTask(plugin, () -> {
-                                openTagsGui(player, c.key(), 0);
-                            });
-                        });
-                    
-                    modal.setItem(c.slot(), item);
-                });
+                .forEach(c -> layout.place(c.slot(), categoryStack(c)).setAction(event -> {
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        openTagsGui(player, c.key(), 0);
+                    });
+                }));
 
             // Add reset button
-            int resetSlotCat = plugin.getConfig().getInt("settings.gui.layout.items.reset-button-slot-category", -1);
+            int resetSlotCat = gui.resetSlotCategory;
             if (resetSlotCat >= 0) {
-                ModalItem resetItem = buildNavButton("reset-button", resetBtn.mat, Map.of());
+                ModalItem resetItem = layout.place(resetSlotCat, navStack("reset-button", "", gui.resetBtn.mat(), Map.of()));
                 resetItem.setAction(event -> {
                     data.setActive(player.getUniqueId(), "none");
-                    sendMessage(player, plugin.getConfig().getString("settings.messages.tag-reset", ""));
+                    sendMessage(player, gui.msgTagReset);
                     Bukkit.getScheduler().runTask(plugin, () -> {
                         openCategoryGui(player);
                     });
                 });
-                modal.setItem(resetSlotCat, resetItem);
             }
 
             // Add active tag display
-            int activeSlotCat = plugin.getConfig().getInt("settings.gui.layout.items.active-tag-item-slot-category", -1);
+            int activeSlotCat = gui.activeSlotCategory;
             if (activeSlotCat >= 0) {
                 String activeId = data.get(player.getUniqueId()).active;
                 String activeName = activeId != null && !activeId.equalsIgnoreCase("none") && !tags.byId(activeId).isEmpty() 
-                    ? componentToLegacyString(tags.byId(activeId).get().name())
-                    : tagCfg.getString("settings.system.empty-tag.name", "None");
+                    ? tags.byId(activeId).get().nameText().legacy()
+                    : gui.emptyTagName;
                 
-                ModalItem activeItem = buildNavButton("active-tag", activeBtn.mat, Map.of("tag", activeName));
-                modal.setItem(activeSlotCat, activeItem);
+                layout.place(activeSlotCat, navStack("active-tag", activeName, gui.activeBtn.mat(), Map.of("tag", activeName)));
             }
 
             // Add close/back button
-            boolean topCat = defaultView.equals("category");
-            int buttonSlot = swapGlobal && topCat 
-                ? plugin.getConfig().getInt("settings.gui.layout.items.close-button-slot-category", -1)
-                : plugin.getConfig().getInt("settings.gui.layout.items.back-button-slot-category", -1);
-                
+            boolean topCat = gui.defaultView.equals("category");
+            int buttonSlot = gui.swapGlobal && topCat ? gui.closeSlotCategory : gui.backSlotCategory;
+
             if (buttonSlot >= 0) {
-                String buttonType = swapGlobal && topCat ? "close-button" : "back-button";
-                Material buttonMat = swapGlobal && topCat ? closeBtn.mat : backBtn.mat;
-                ModalItem buttonItem = buildNavButton(buttonType, buttonMat, Map.of());
-                
-                if (swapGlobal && topCat) {
+                String buttonType = gui.swapGlobal && topCat ? "close-button" : "back-button";
+                Material buttonMat = gui.swapGlobal && topCat ? gui.closeBtn.mat() : gui.backBtn.mat();
+                ModalItem buttonItem = layout.place(buttonSlot, navStack(buttonType, "", buttonMat, Map.of()));
+
+                if (gui.swapGlobal && topCat) {
                     buttonItem.setAction(event -> handleTopClose(player));
+                } else {
+                    buttonItem.setAction(null);
                 }
-                modal.setItem(buttonSlot, buttonItem);
             }
 
-            modal.open(player);
+            show(player, session, layout, gui.categoryTitle, gui.categoryRows);
 
-            String cfgSort = plugin.getConfig().getString("settings.system.favorites-sort", "UNSORTED").toUpperCase(Locale.ROOT);
-            Sort defaultSort;
-            try {
-                defaultSort = Sort.valueOf(cfgSort);
-            } catch (IllegalArgumentException e) {
-                defaultSort = Sort.UNSORTED;
-            }
-
-            open.put(player.getUniqueId(), new GuiSession(GuiType.CATEGORY, 0, "ALL", defaultSort, "ALL"));
-            
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to open category GUI for " + player.getName() + ": " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * The category button for {@code category}, built on first use and dropped on
+     * {@link #reloadLayout()}, which runs whenever a new set of categories is published.
+     */
+    private ItemStack categoryStack(CategoryModal.TagCategory category) {
+        return categoryItems.computeIfAbsent(category, c -> ItemBuilder.from(c.icon())
+            .name(c.displayName())
+            .lore(c.lore())
+            .build());
+    }
+
+    /**
+     * Opens the tags GUI showing the tags that match {@code query}, ranked by
+     * {@link TagModal#search}. Switching category in the GUI leaves search mode.
+     */
+    public void openSearch(Player player, String query) {
+        GuiSession session = open.computeIfAbsent(player.getUniqueId(), u -> newTagsSession());
+        session.search = query.isBlank() ? null : query.trim();
+        openTagsGui(player, null, 0);
+    }
+
     public void openTagsGui(Player player, String categoryFilter, int page) {
         try {
-            GuiSession session = open.computeIfAbsent(player.getUniqueId(), u -> {
-                String cfgSort = plugin.getConfig().getString("settings.system.favorites-sort", "UNSORTED").toUpperCase(Locale.ROOT);
-                Sort defaultSort;
-                try {
-                    defaultSort = Sort.valueOf(cfgSort);
-                } catch (IllegalArgumentException e) {
-                    defaultSort = Sort.UNSORTED;
-                }
-                return new GuiSession(GuiType.TAGS, 0, "ALL", defaultSort, "ALL");
-            });
+            GuiSession session = open.computeIfAbsent(player.getUniqueId(), u -> newTagsSession());
 
             session.type = GuiType.TAGS;
             if (categoryFilter != null) {
@@ -253,41 +257,38 @@ public final class ModalProcessor implements Listener {
                 session.page = page;
             }
 
+            GuiSettings gui = this.gui;
             List<TagModal.Tag> src = applyFilterAndSort(player, session);
-            List<Integer> slots = cfg.guiSlots();
+            List<Integer> slots = gui.tagSlots;
             int perPage = slots.size();
             int maxPage = Math.max(0, (src.size() - 1) / perPage);
             session.page = Math.min(Math.max(0, session.page), maxPage);
 
-            int rows = plugin.getConfig().getInt("settings.gui.tags-menu.rows", 6);
-            String pattern = plugin.getConfig().getString("settings.gui.layout.titles.tags-gui-name", "Tags | {category} ({currentpage}/{totalpages})");
-            String filterName = catCfg.getString("settings.system.category-sort.filters." + session.filter.toLowerCase(Locale.ROOT) + ".name", session.filter);
-            String titleRaw = pattern.replace("{category}", filterName)
+            int rows = gui.tagsRows;
+            String filterName = session.search != null
+                ? gui.searchTitle.replace("{query}", literal(session.search))
+                : gui.filterNames.getOrDefault(session.filter.toLowerCase(Locale.ROOT), session.filter);
+            String titleRaw = gui.tagsTitle.replace("{category}", filterName)
                 .replace("{currentpage}", String.valueOf(session.page + 1))
                 .replace("{totalpages}", String.valueOf(maxPage + 1));
 
-            Component title = parseText(titleRaw);
-
-            // Use BaseModal instead of Modal
-            BaseModal modal = io.rhythmknights.coreapi.component.modal.Modal.modal()
-                .title(title)
-                .rows(rows)
-                .disableAllInteractions()
-                .create();
-
-            // Add tag items
+            // Lay out the page from the cached stacks; slots that show the same stack as
+            // the last render keep their ModalItem
+            Page layout = new Page(session);
             int base = session.page * perPage;
+            List<String> shown = new ArrayList<>();
             for (int i = 0; i < perPage && base + i < src.size(); i++) {
                 TagModal.Tag tag = src.get(base + i);
-                ModalItem tagItem = buildTagItem(player, tag);
-                modal.setItem(slots.get(i), tagItem);
+                layout.place(slots.get(i), tagStack(player, tag))
+                    .setAction(event -> handleTagClick(player, tag, event.getClick()));
+                shown.add(tag.id());
             }
+            session.shown = shown;
 
             // Add navigation buttons
-            addNavigationButtons(modal, session, player);
+            addNavigationButtons(layout, session, player);
 
-            modal.open(player);
-            open.put(player.getUniqueId(), session);
+            show(player, session, layout, titleRaw, rows);
 
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to open tags GUI for " + player.getName() + ": " + e.getMessage());
@@ -295,134 +296,158 @@ public final class ModalProcessor implements Listener {
         }
     }
 
-    private void addNavigationButtons(BaseModal modal, GuiSession session, Player player) {
+    /**
+     * Puts {@code layout} in front of the player. While the session's window is still open
+     * with the same title and row count, only the slots whose stack changed are written
+     * into it; anything else opens a new window.
+     */
+    private void show(Player player, GuiSession session, Page layout, String titleRaw, int rows) {
+        if (session.modal != null && titleRaw.equals(session.title) && rows == session.rows) {
+            // Same window: swap only the slots whose stack changed, leave the rest alone
+            if (layout.patch(session.modal)) {
+                session.modal.update();
+            }
+        } else {
+            // Use BaseModal instead of Modal
+            BaseModal modal = io.rhythmknights.coreapi.component.modal.Modal.modal()
+                .title(parseText(titleRaw))
+                .rows(rows)
+                .disableAllInteractions()
+                .create();
+            layout.items.forEach(modal::setItem);
+
+            modal.open(player);
+            session.modal = modal;
+            session.title = titleRaw;
+            session.rows = rows;
+        }
+        session.sources = layout.sources;
+        session.items = layout.items;
+        open.put(player.getUniqueId(), session);
+    }
+
+    private GuiSession newTagsSession() {
+        return new GuiSession(GuiType.TAGS, 0, "ALL", gui.sortedByDefault ? Sort.SORTED : Sort.UNSORTED, "ALL");
+    }
+
+    private void addNavigationButtons(Page layout, GuiSession session, Player player) {
+        GuiSettings gui = this.gui;
+
         // Add previous page button
-        if (prevBtn.slot >= 0) {
-            ModalItem prevItem = buildNavButton("last-page-button", prevBtn.mat, Map.of());
+        if (gui.prevBtn.slot() >= 0) {
+            ModalItem prevItem = layout.place(gui.prevBtn.slot(), navStack("last-page-button", "", gui.prevBtn.mat(), Map.of()));
             prevItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     openTagsGui(player, null, session.page - 1);
                 });
             });
-            modal.setItem(prevBtn.slot, prevItem);
         }
 
         // Add next page button  
-        if (nextBtn.slot >= 0) {
-            ModalItem nextItem = buildNavButton("next-page-button", nextBtn.mat, Map.of());
+        if (gui.nextBtn.slot() >= 0) {
+            ModalItem nextItem = layout.place(gui.nextBtn.slot(), navStack("next-page-button", "", gui.nextBtn.mat(), Map.of()));
             nextItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     openTagsGui(player, null, session.page + 1);
                 });
             });
-            modal.setItem(nextBtn.slot, nextItem);
         }
 
         // Add category sort button
-        if (catBtn.slot >= 0) {
+        if (gui.catBtn.slot() >= 0) {
             String currentFilter = session.filter;
-            Material catMaterial = categorySwitchMaterial ? getMaterialForFilter(currentFilter) : catBtn.mat;
+            Material catMaterial = gui.categorySwitchMaterial ? gui.filterMaterial(currentFilter) : gui.catBtn.mat();
+            String filterDisplayName = gui.filterDisplayName(currentFilter);
             
-            // Get filter display name from categories.yml
-            String filterDisplayName = getFilterDisplayName(currentFilter);
-            
-            ModalItem catItem = buildNavButton("category-sort-button", catMaterial, Map.of("filter", filterDisplayName, "category", filterDisplayName));
+            ModalItem catItem = layout.place(gui.catBtn.slot(), navStack("category-sort-button", currentFilter.toLowerCase(Locale.ROOT), catMaterial, Map.of("filter", filterDisplayName, "category", filterDisplayName)));
             catItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    String nextFilter = getNextCategoryFilter(currentFilter);
+                    String nextFilter = next(gui.categoryFilters, currentFilter);
                     session.filter = nextFilter;
+                    session.search = null;
                     openTagsGui(player, null, 0); // Reset to page 0 when changing filter
                 });
             });
-            modal.setItem(catBtn.slot, catItem);
         }
 
         // Add favorites sort button
-        if (favBtn.slot >= 0) {
+        if (gui.favBtn.slot() >= 0) {
             String sortType = session.sort == Sort.SORTED ? "sorted" : "unsorted";
-            String sortDisplayName = getSortDisplayName(sortType);
-            ModalItem favItem = buildNavButton("favorite-sort-button", favBtn.mat, Map.of("sort", sortDisplayName, "sorting", sortDisplayName));
+            String sortDisplayName = gui.sortNames.get(sortType);
+            ModalItem favItem = layout.place(gui.favBtn.slot(), navStack("favorite-sort-button", sortType, gui.favBtn.mat(), Map.of("sort", sortDisplayName, "sorting", sortDisplayName)));
             favItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     session.sort = session.sort == Sort.SORTED ? Sort.UNSORTED : Sort.SORTED;
                     openTagsGui(player, null, -999); // Keep current page
                 });
             });
-            modal.setItem(favBtn.slot, favItem);
         }
 
         // Add color sort button
-        if (colorSortBtn.slot >= 0) {
+        if (gui.colorSortBtn.slot() >= 0) {
             String currentColor = session.colorFilter;
-            Material colorMaterial = colorSwitchMaterial ? getMaterialForColor(currentColor) : colorSortBtn.mat;
-            
-            // Get color display name from tags.yml
-            String colorDisplayName = getColorDisplayName(currentColor);
+            Material colorMaterial = gui.colorSwitchMaterial ? gui.colorMaterial(currentColor) : gui.colorSortBtn.mat();
+            String colorDisplayName = gui.colorDisplayName(currentColor);
             
-            ModalItem colorItem = buildNavButton("color-sort-button", colorMaterial, Map.of("color", colorDisplayName));
+            ModalItem colorItem = layout.place(gui.colorSortBtn.slot(), navStack("color-sort-button", currentColor.toLowerCase(Locale.ROOT), colorMaterial, Map.of("color", colorDisplayName)));
             colorItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    String nextColor = getNextColor(currentColor);
+                    String nextColor = next(GuiSettings.COLORS, currentColor);
                     session.colorFilter = nextColor;
                     openTagsGui(player, null, 0); // Reset to page 0 when changing filter
                 });
             });
-            modal.setItem(colorSortBtn.slot, colorItem);
         }
 
         // Add reset button
-        if (resetBtn.slot >= 0) {
-            ModalItem resetItem = buildNavButton("reset-button", resetBtn.mat, Map.of());
+        if (gui.resetBtn.slot() >= 0) {
+            ModalItem resetItem = layout.place(gui.resetBtn.slot(), navStack("reset-button", "", gui.resetBtn.mat(), Map.of()));
             resetItem.setAction(event -> {
                 data.setActive(player.getUniqueId(), "none");
-                sendMessage(player, plugin.getConfig().getString("settings.messages.tag-reset", ""));
+                sendMessage(player, gui.msgTagReset);
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     openTagsGui(player, null, -999); // Keep current page
                 });
             });
-            modal.setItem(resetBtn.slot, resetItem);
         }
 
         // Add back button
-        if (backBtn.slot >= 0) {
-            ModalItem backItem = buildNavButton("back-button", backBtn.mat, Map.of());
+        if (gui.backBtn.slot() >= 0) {
+            ModalItem backItem = layout.place(gui.backBtn.slot(), navStack("back-button", "", gui.backBtn.mat(), Map.of()));
             backItem.setAction(event -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (defaultView.equals("category")) {
+                    if (gui.defaultView.equals("category")) {
                         openCategoryGui(player);
                     } else {
                         player.closeInventory();
                     }
                 });
             });
-            modal.setItem(backBtn.slot, backItem);
         }
 
         // Add close button
-        if (closeBtn.slot >= 0) {
-            ModalItem closeItem = buildNavButton("close-button", closeBtn.mat, Map.of());
+        if (gui.closeBtn.slot() >= 0) {
+            ModalItem closeItem = layout.place(gui.closeBtn.slot(), navStack("close-button", "", gui.closeBtn.mat(), Map.of()));
             closeItem.setAction(event -> handleTopClose(player));
-            modal.setItem(closeBtn.slot, closeItem);
         }
 
         // Add active tag display
-        if (activeBtn.slot >= 0) {
+        if (gui.activeBtn.slot() >= 0) {
             String activeId = data.get(player.getUniqueId()).active;
             String activeName = activeId != null && !activeId.equalsIgnoreCase("none") && !tags.byId(activeId).isEmpty() 
-                ? componentToLegacyString(tags.byId(activeId).get().name())
-                : tagCfg.getString("settings.system.empty-tag.name", "None");
+                ? tags.byId(activeId).get().nameText().legacy()
+                : gui.emptyTagName;
             
-            ModalItem activeItem = buildNavButton("active-tag", activeBtn.mat, Map.of("tag", activeName));
-            modal.setItem(activeBtn.slot, activeItem);
+            layout.place(gui.activeBtn.slot(), navStack("active-tag", activeName, gui.activeBtn.mat(), Map.of("tag", activeName)));
         }
     }
 
-    private ModalItem buildTagItem(Player player, TagModal.Tag tag) {
+    private ItemStack tagStack(Player player, TagModal.Tag tag) {
         PlayerDataModule.PlayerData pd = data.get(player.getUniqueId());
-        boolean unlocked = pd.unlocked.contains(tag.id()) || tag.cost() == 0 || !eco.active();
+        boolean unlocked = pd.unlocked.containsOrdinal(tag.ordinal()) || tag.cost() == 0 || !eco.active();
         
         ConfigModule.GameState state;
-        if (!player.hasPermission(tag.permission())) {
+        if (!perms.get(player).tag(tag)) {
             state = ConfigModule.GameState.PROTECTED;
         } else if (tag.id().equals(pd.active)) {
             state = ConfigModule.GameState.ACTIVE;
@@ -432,37 +457,46 @@ public final class ModalProcessor implements Listener {
             state = ConfigModule.GameState.LOCKED;
         }
 
-        // Use component directly - it's already parsed in TagModal
-        Component name = tag.name();
-        List<Component> lore = buildTagLore(tag, state, pd);
+        boolean fav = pd.favorites.containsOrdinal(tag.ordinal());
+        return renderedTag(tag, state, fav);
+    }
 
-        ModalItem item = ItemBuilder.from(tag.icon())
-            .name(name)
-            .lore(lore)
-            .asModalItem(event -> handleTagClick(player, tag, event.getClick()));
+    /**
+     * The prebuilt item for {@code tag} in {@code state}, built on first use. Entries
+     * are dropped on {@link #reloadLayout()} and rebuilt when the catalog publishes a
+     * new instance of the tag, so an incremental update only re-renders changed tags.
+     */
+    private ItemStack renderedTag(TagModal.Tag tag, ConfigModule.GameState state, boolean fav) {
+        TagItems items = tagItems.get(tag.ordinal());
+        if (items == null || items.tag != tag) {
+            items = new TagItems(tag);
+            tagItems.put(tag.ordinal(), items);
+        }
 
-        return item;
+        int index = state.ordinal() * 2 + (fav ? 1 : 0);
+        ItemStack stack = items.stacks[index];
+        if (stack == null) {
+            // Use component directly - it's already parsed in TagModal
+            stack = ItemBuilder.from(tag.icon())
+                .name(tag.name())
+                .lore(buildTagLore(tag, state, fav))
+                .build();
+            items.stacks[index] = stack;
+        }
+        return stack;
     }
 
-    private List<Component> buildTagLore(TagModal.Tag tag, ConfigModule.GameState state, PlayerDataModule.PlayerData pd) {
-        String base = "settings.gui.tags.tag-items.";
-        String lorePath = switch (state) {
-            case ACTIVE -> base + "active-lore";
-            case LOCKED -> base + "locked-lore";
-            case UNLOCKED -> base + "unlocked-lore";
-            default -> base + "protected-lore";
-        };
+    private List<Component> buildTagLore(TagModal.Tag tag, ConfigModule.GameState state, boolean fav) {
+        GuiSettings gui = this.gui;
+        String fmsg = fav ? gui.favoriteMsgRemove : gui.favoriteMsgAdd;
+        String fstate = fav ? gui.favoriteStateEnabled : gui.favoriteStateDisabled;
 
-        boolean fav = pd.favorites.contains(tag.id());
-        String fmsg = tagCfg.getString("settings.system.favorite.msg." + (fav ? "remove" : "add"), "");
-        String fstate = tagCfg.getString("settings.system.favorite.state." + (fav ? "enabled" : "disabled"), "");
-
-        List<String> template = plugin.getConfig().getStringList(lorePath);
+        List<String> template = gui.tagLore.get(state);
         List<Component> lore = new ArrayList<>();
 
         for (String line : template) {
             String processed = line
-                .replace("{display}", componentToLegacyString(tag.display()))
+                .replace("{display}", tag.displayText().legacy())
                 .replace("{cost}", String.valueOf(tag.cost()))
                 .replace("{status}", tags.statusText(state))
                 .replace("{favoritemsg}", fmsg)
@@ -486,19 +520,17 @@ public final class ModalProcessor implements Listener {
 
     private void handleTagClick(Player player, TagModal.Tag tag, ClickType click) {
         PlayerDataModule.PlayerData pd = data.get(player.getUniqueId());
-        boolean unlocked = pd.unlocked.contains(tag.id()) || tag.cost() == 0 || !eco.active();
+        boolean unlocked = pd.unlocked.containsOrdinal(tag.ordinal()) || tag.cost() == 0 || !eco.active();
 
         switch (click) {
             case LEFT:
                 if (unlocked) {
                     data.setActive(player.getUniqueId(), tag.id());
-                    String message = plugin.getConfig().getString("settings.messages.tag-activate", "");
-                    message = message.replace("{activetag}", componentToLegacyString(tag.name()))
-                        .replace("{tagdisplay}", componentToLegacyString(tag.display()));
+                    String message = gui.msgTagActivate.replace("{activetag}", tag.nameText().legacy())
+                        .replace("{tagdisplay}", tag.displayText().legacy());
                     sendMessage(player, message);
                 } else {
-                    String message = plugin.getConfig().getString("settings.messages.tag-locked", "");
-                    message = message.replace("{tag}", componentToLegacyString(tag.name()));
+                    String message = gui.msgTagLocked.replace("{tag}", tag.nameText().legacy());
                     sendMessage(player, message);
                 }
                 break;
@@ -524,34 +556,39 @@ public final class ModalProcessor implements Listener {
     private void attemptPurchase(Player player, TagModal.Tag tag) {
         double cost = tag.cost();
         if (!eco.canAfford(player, cost)) {
-            String message = plugin.getConfig().getString("settings.messages.tag-balance", 
-                "Insufficient funds. You need {cost} to unlock the {tag} tag.")
+            String message = gui.msgTagBalance
                 .replace("{cost}", String.valueOf(cost))
-                .replace("{tag}", componentToLegacyString(tag.name()));
+                .replace("{tag}", tag.nameText().legacy());
             sendMessage(player, message);
         } else {
             eco.withdraw(player, cost);
             data.unlockTag(player.getUniqueId(), tag.id());
-            String message = plugin.getConfig().getString("settings.messages.tag-unlocked", "")
+            String message = gui.msgTagUnlocked
                 .replace("{cost}", String.valueOf(cost))
-                .replace("{tag}", componentToLegacyString(tag.name()));
+                .replace("{tag}", tag.nameText().legacy());
             sendMessage(player, message);
         }
     }
 
-    private ModalItem buildNavButton(String key, Material mat, Map<String, String> vars) {
-        String rawTitle = "";
-        
-        // Handle special cases for category and favorite sort buttons
-        if (key.equals("category-sort-button")) {
-            rawTitle = catCfg.getString("settings.system.category-sort.sort-button.name", "&7CATEGORY &8• {filter}");
-        } else if (key.equals("favorite-sort-button")) {
-            rawTitle = catCfg.getString("settings.system.favorites-sort.sort-button.name", "&7FAVORITES &8• {sort}");
-        } else {
-            // Get title from config.yml for other buttons
-            String titlePath = "settings.gui.layout.titles." + key + "-name";
-            rawTitle = plugin.getConfig().getString(titlePath, "MISSING_TITLE_" + key);
+    /**
+     * Returns the nav button {@code key} in {@code state} (a filter, colour, sort or tag
+     * name; empty for stateless buttons). Stacks are built once and reused until the next
+     * {@link #reloadLayout()}; the finite states are built up front by
+     * {@link #compileNavButtons()}.
+     */
+    private ItemStack navStack(String key, String state, Material mat, Map<String, String> vars) {
+        Map<String, ItemStack> states = navItems.computeIfAbsent(key, k -> new HashMap<>());
+        ItemStack stack = states.get(state);
+        if (stack == null) {
+            stack = renderNavButton(key, mat, vars);
+            states.put(state, stack);
         }
+        return stack;
+    }
+
+    private ItemStack renderNavButton(String key, Material mat, Map<String, String> vars) {
+        GuiSettings.NavText text = gui.nav.get(key);
+        String rawTitle = text.title();
 
         // Replace all variables in the title
         for (Map.Entry<String, String> entry : vars.entrySet()) {
@@ -563,19 +600,13 @@ public final class ModalProcessor implements Listener {
             rawTitle = rawTitle.replace("{sort-type}", vars.getOrDefault("sort", ""));
         }
 
-        // Log for debugging
-        plugin.getLogger().info("Building nav button '" + key + "' with title: '" + rawTitle + "' and material: " + mat.name());
-
         // Use CoreFramework TextUtility directly
         Component title = parseText(rawTitle);
         
         ItemBuilder builder = ItemBuilder.from(mat).name(title);
 
-        // Get lore from config.yml
-        String lorePath = "settings.gui.layout.lore." + key + "-lore";
-        ConfigurationSection loreSec = plugin.getConfig().getConfigurationSection(lorePath);
-        if (loreSec != null && loreSec.getBoolean("enabled", false)) {
-            List<Component> lore = loreSec.getStringList("lore").stream()
+        if (text.lore() != null) {
+            List<Component> lore = text.lore().stream()
                 .map(line -> {
                     // Replace variables in lore lines too
                     String processedLine = line;
@@ -589,78 +620,105 @@ public final class ModalProcessor implements Listener {
             builder.lore(lore);
         }
 
-        // Check for enchantment glint
-        String matKey = key + "-material";
-        boolean glint = plugin.getConfig().getBoolean("settings.gui.layout.materials." + matKey + ".enchantment-glint", false);
-        if (glint) {
+        if (text.glint()) {
             builder.glow();
         }
 
-        return builder.asModalItem();
+        return builder.build();
     }
 
+    /**
+     * Returns the session's filtered and sorted tag list, recomputing it only when one of
+     * its inputs changed since the last render. Page turns and redraws of an unchanged view
+     * reuse the list as is.
+     */
     private List<TagModal.Tag> applyFilterAndSort(Player player, GuiSession session) {
+        PlayerDataModule.PlayerData pd = data.get(player.getUniqueId());
+        PermissionCache.Snapshot snapshot = perms.get(player);
+        ViewKey key = new ViewKey(session.filter, session.colorFilter, session.sort, session.search,
+            tags.version(), cats.version(), pd.unlocked, pd.favorites, eco.active(), snapshot);
+        if (!key.equals(session.viewKey)) {
+            session.view = computeView(session, pd, accessibleCategories(snapshot));
+            session.viewKey = key;
+        }
+        return session.view;
+    }
+
+    private List<TagModal.Tag> computeView(GuiSession session, PlayerDataModule.PlayerData pd, List<String> access) {
         String filter = session.filter.toUpperCase(Locale.ROOT);
+        TagModal.TagColor color = TagModal.TagColor.parse(session.colorFilter);
         List<TagModal.Tag> src;
 
+        if (session.search != null) {
+            // Search results keep their rank order; the favorites sort does not apply
+            Set<String> visible = access.stream()
+                .map(k -> k.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+            return tags.search(session.search).stream()
+                .filter(t -> visible.contains(t.category()))
+                .filter(t -> color == null || TagModal.TagColor.parse(t.color()) == color)
+                .collect(Collectors.toList());
+        }
+
         switch (filter) {
             case "ALL":
-                src = accessibleTags(player);
+                src = tags.select(access, color, TagModal.CostClass.ANY);
                 break;
             case "FAVORITES":
-                src = accessibleTags(player).stream()
-                    .filter(t -> data.get(player.getUniqueId()).favorites.contains(t.id()))
+                src = tags.select(access, color, TagModal.CostClass.ANY).stream()
+                    .filter(t -> pd.favorites.containsOrdinal(t.ordinal()))
                     .collect(Collectors.toList());
                 break;
             case "UNLOCKED":
-                src = accessibleTags(player).stream()
-                    .filter(t -> data.get(player.getUniqueId()).unlocked.contains(t.id()) || t.cost() == 0 || !eco.active())
-                    .collect(Collectors.toList());
+                if (!eco.active()) {
+                    src = tags.select(access, color, TagModal.CostClass.ANY);
+                } else {
+                    src = tags.select(access, color, TagModal.CostClass.ANY).stream()
+                        .filter(t -> t.cost() == 0 || pd.unlocked.containsOrdinal(t.ordinal()))
+                        .collect(Collectors.toList());
+                }
                 break;
             case "LOCKED":
-                src = accessibleTags(player).stream()
-                    .filter(t -> !data.get(player.getUniqueId()).unlocked.contains(t.id()) && t.cost() != 0 && eco.active())
-                    .collect(Collectors.toList());
+                if (!eco.active()) {
+                    src = List.of();
+                } else {
+                    src = tags.select(access, color, TagModal.CostClass.PAID).stream()
+                        .filter(t -> !pd.unlocked.containsOrdinal(t.ordinal()))
+                        .collect(Collectors.toList());
+                }
                 break;
             case "PROTECTED":
-                src = cats.all().stream()
+                src = tags.select(cats.all().stream()
                     .filter(CategoryModal.TagCategory::isProtected)
-                    .flatMap(c -> tags.byCategory(c.key()).stream())
-                    .collect(Collectors.toList());
+                    .map(CategoryModal.TagCategory::key)
+                    .collect(Collectors.toList()), color, TagModal.CostClass.ANY);
                 break;
             default:
-                src = tags.byCategory(session.filter);
-        }
-
-        if (!session.colorFilter.equalsIgnoreCase("ALL")) {
-            String cf = session.colorFilter.equals("GREY") ? "GRAY" : session.colorFilter;
-            src = src.stream()
-                .filter(tag -> tag.color().equalsIgnoreCase(cf))
-                .collect(Collectors.toList());
+                src = tags.select(List.of(session.filter), color, TagModal.CostClass.ANY);
         }
 
         if (session.sort == Sort.SORTED) {
-            Set<String> favs = data.get(player.getUniqueId()).favorites;
             src = src.stream()
-                .sorted(Comparator.comparing((TagModal.Tag t) -> !favs.contains(t.id()))
-                    .thenComparing(t -> componentToLegacyString(t.name()), String.CASE_INSENSITIVE_ORDER))
+                .sorted(Comparator.comparing((TagModal.Tag t) -> !pd.favorites.containsOrdinal(t.ordinal()))
+                    .thenComparing(TagModal.Tag::sortKey))
                 .collect(Collectors.toList());
         }
 
         return src;
     }
 
-    private List<TagModal.Tag> accessibleTags(Player player) {
+    /** Keys of the categories {@code player} may see, in category menu slot order. */
+    private List<String> accessibleCategories(PermissionCache.Snapshot snapshot) {
         return cats.all().stream()
-            .filter(c -> player.hasPermission(c.permission()))
+            .filter(snapshot::category)
             .sorted(Comparator.comparingInt(CategoryModal.TagCategory::slot))
-            .flatMap(c -> tags.byCategory(c.key()).stream())
+            .map(CategoryModal.TagCategory::key)
             .collect(Collectors.toList());
     }
 
     private void handleTopClose(Player player) {
-        if (closeCfg.enabled()) {
-            if (closeCfg.closeGuiFirst()) {
+        if (gui.closeCmd.enabled()) {
+            if (gui.closeCmd.closeGuiFirst()) {
                 player.closeInventory();
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     runCloseCommands(player);
@@ -675,10 +733,10 @@ public final class ModalProcessor implements Listener {
     }
 
     private void runCloseCommands(Player player) {
-        for (String cmd : closeCfg.commands()) {
+        for (String cmd : gui.closeCmd.commands()) {
             if (cmd != null && !cmd.isBlank()) {
                 String command = cmd.replace("%player%", player.getName());
-                if (closeCfg.runAsConsole()) {
+                if (gui.closeCmd.runAsConsole()) {
                     plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), command);
                 } else {
                     plugin.getServer().dispatchCommand(player, command);
@@ -687,137 +745,21 @@ public final class ModalProcessor implements Listener {
         }
     }
 
-    private String getFilterDisplayName(String filter) {
-        // Get display name from categories.yml using the correct path structure
-        String configPath = "settings.system.category-sort.filters." + filter.toLowerCase() + ".name";
-        String displayName = catCfg.getString(configPath);
-        if (displayName != null) {
-            return displayName;
-        }
-        
-        // If it's a category name, get from categories section
-        if (!filter.equalsIgnoreCase("ALL") && !filter.equalsIgnoreCase("FAVORITES") && 
-            !filter.equalsIgnoreCase("UNLOCKED") && !filter.equalsIgnoreCase("LOCKED") && 
-            !filter.equalsIgnoreCase("PROTECTED")) {
-            String categoryPath = "settings.categories." + filter.toLowerCase() + ".name";
-            displayName = catCfg.getString(categoryPath);
-            if (displayName != null) {
-                return displayName;
-            }
-        }
-        
-        // Fallback to the filter name itself
-        return filter;
-    }
-    
-    private String getSortDisplayName(String sortType) {
-        // Get display name from categories.yml (not tags.yml) using correct path
-        String configPath = "settings.system.favorites-sort.sort-type." + sortType.toLowerCase() + ".name";
-        String displayName = catCfg.getString(configPath);
-        return displayName != null ? displayName : sortType;
-    }
-    
-    private String getColorDisplayName(String color) {
-        // Get display name from config.yml using the correct path
-        String configPath = "settings.system.colors." + color.toLowerCase() + ".text";
-        String displayName = plugin.getConfig().getString(configPath);
-        return displayName != null ? displayName : color;
-    }
-
-    private String getNextCategoryFilter(String current) {
-        // Get available category filters from config
-        List<String> filters = new ArrayList<>();
-        filters.add("ALL");
-        filters.add("FAVORITES");
-        filters.add("UNLOCKED");
-        filters.add("LOCKED");
-        filters.add("PROTECTED");
-        
-        // Add actual category names
-        cats.all().forEach(cat -> filters.add(cat.key().toUpperCase(Locale.ROOT)));
-        
-        int currentIndex = filters.indexOf(current.toUpperCase(Locale.ROOT));
+    /** The entry after {@code current} in {@code cycle}, wrapping; the first entry if {@code current} is absent. */
+    private static String next(List<String> cycle, String current) {
+        int currentIndex = cycle.indexOf(current.toUpperCase(Locale.ROOT));
         if (currentIndex == -1) currentIndex = 0;
-        
-        int nextIndex = (currentIndex + 1) % filters.size();
-        return filters.get(nextIndex);
-    }
 
-    private String getNextColor(String current) {
-        int currentIndex = COLORS.indexOf(current.toUpperCase(Locale.ROOT));
-        if (currentIndex == -1) currentIndex = 0;
-        
-        int nextIndex = (currentIndex + 1) % COLORS.size();
-        return COLORS.get(nextIndex);
+        int nextIndex = (currentIndex + 1) % cycle.size();
+        return cycle.get(nextIndex);
     }
 
-    private Material getMaterialForFilter(String filter) {
-        // First try to get material from category-sort-button-switch-material section
-        String switchMaterialPath = "settings.gui.layout.materials.category-sort-button-switch-material.material." + filter.toLowerCase() + ".material";
-        String materialName = plugin.getConfig().getString(switchMaterialPath);
-        
-        plugin.getLogger().info("Looking for filter switch material at path: " + switchMaterialPath + " = " + materialName);
-        
-        if (materialName != null) {
-            try {
-                Material result = Material.valueOf(materialName.toUpperCase(Locale.ROOT));
-                plugin.getLogger().info("Found filter switch material: " + result.name() + " for filter: " + filter);
-                return result;
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid switch material '" + materialName + "' for filter '" + filter + "'");
-            }
-        }
-        
-        // If it's a category, try to get material from category definition
-        if (!filter.equalsIgnoreCase("ALL") && !filter.equalsIgnoreCase("FAVORITES") && 
-            !filter.equalsIgnoreCase("UNLOCKED") && !filter.equalsIgnoreCase("LOCKED") && 
-            !filter.equalsIgnoreCase("PROTECTED")) {
-            String categoryPath = "settings.categories." + filter.toLowerCase() + ".material";
-            materialName = catCfg.getString(categoryPath);
-            plugin.getLogger().info("Looking for category material at path: " + categoryPath + " = " + materialName);
-            if (materialName != null) {
-                try {
-                    Material result = Material.valueOf(materialName.toUpperCase(Locale.ROOT));
-                    plugin.getLogger().info("Found category material: " + result.name() + " for filter: " + filter);
-                    return result;
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("Invalid material '" + materialName + "' for category '" + filter + "'");
-                }
-            }
-        }
-        
-        plugin.getLogger().info("Using fallback material: " + catBtn.mat.name() + " for filter: " + filter);
-        return catBtn.mat; // Fallback to default material
-    }
-
-    private Material getMaterialForColor(String color) {
-        // Get material from config.yml using the correct path for color switch materials
-        String switchMaterialPath = "settings.gui.layout.materials.color-sort-button-switch-material.material." + color.toLowerCase() + ".material";
-        String materialName = plugin.getConfig().getString(switchMaterialPath);
-        
-        plugin.getLogger().info("Looking for color switch material at path: " + switchMaterialPath + " = " + materialName);
-        
-        if (materialName != null) {
-            try {
-                Material result = Material.valueOf(materialName.toUpperCase(Locale.ROOT));
-                plugin.getLogger().info("Found color switch material: " + result.name() + " for color: " + color);
-                return result;
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid switch material '" + materialName + "' for color '" + color + "'");
-            }
-        }
-        
-        plugin.getLogger().info("Using fallback material: " + colorSortBtn.mat.name() + " for color: " + color);
-        return colorSortBtn.mat; // Fallback to default material
-    }
-
-    private String componentToLegacyString(Component component) {
-        try {
-            // Use LegacyComponentSerializer to convert back to legacy format
-            return LegacyComponentSerializer.legacyAmpersand().serialize(component);
-        } catch (Exception e) {
-            return component.toString();
-        }
+    /**
+     * Player-typed text made safe to embed in a string that {@link #parseText} formats:
+     * legacy colour markers are dropped and MiniMessage tags escaped.
+     */
+    private static String literal(String text) {
+        return MiniMessage.miniMessage().escapeTags(text.replace("&", "").replace("\u00A7", ""));
     }
 
     private Component parseText(String text) {
@@ -844,45 +786,87 @@ public final class ModalProcessor implements Listener {
         }
     }
 
-    private Material mat(String key) {
-        String base = "settings.gui.layout.materials.";
-        ConfigurationSection sec = plugin.getConfig().getConfigurationSection(base + key);
-        if (sec == null) {
-            plugin.getLogger().warning("Missing config for '" + base + key + "'");
-            return Material.STONE;
-        }
-
-        String raw = sec.getString("material");
-        try {
-            return Material.valueOf(raw.toUpperCase(Locale.ROOT));
-        } catch (Exception e) {
-            plugin.getLogger().warning("Invalid material '" + raw + "' at '" + base + key + "'");
-            return Material.STONE;
-        }
-    }
-
-    private int slot(String path) {
-        return plugin.getConfig().getInt(path, 0);
-    }
-
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onInventoryClose(org.bukkit.event.inventory.InventoryCloseEvent event) {
         open.remove(event.getPlayer().getUniqueId());
     }
 
     // Helper classes
-    private static record Btn(Material mat, int slot) {}
-
     private static enum Sort {
         UNSORTED, SORTED
     }
 
+    /**
+     * Everything a tags view depends on. The player's tag sets are immutable snapshots,
+     * so a favorite toggle or unlock yields a new key while activating a tag does not.
+     */
+    private record ViewKey(String filter, String color, Sort sort, String search, int catalog, int categories,
+                           TagSet unlocked, TagSet favorites, boolean economy, PermissionCache.Snapshot permissions) {
+    }
+
+    /**
+     * One render of a GUI. Slots are filled from the cached tag, category and nav stacks, and
+     * a slot showing the same cached stack as the session's last render keeps that render's
+     * ModalItem, which is already in the open modal, instead of wrapping a new copy.
+     */
+    private static final class Page {
+        final GuiSession session;
+        final Map<Integer, ItemStack> sources = new HashMap<>();
+        final Map<Integer, ModalItem> items = new HashMap<>();
+
+        Page(GuiSession session) {
+            this.session = session;
+        }
+
+        ModalItem place(int slot, ItemStack source) {
+            ModalItem item = session.sources.get(slot) == source ? session.items.get(slot) : null;
+            if (item == null) {
+                item = new ModalItem(source.clone());
+            }
+            sources.put(slot, source);
+            items.put(slot, item);
+            return item;
+        }
+
+        /**
+         * Writes the slots whose cached stack differs from the last render into the open
+         * {@code modal} and clears slots this page leaves empty. Returns whether any slot
+         * was touched.
+         */
+        boolean patch(BaseModal modal) {
+            boolean changed = false;
+            for (Map.Entry<Integer, ItemStack> e : sources.entrySet()) {
+                int slot = e.getKey();
+                if (session.sources.get(slot) != e.getValue()) {
+                    modal.updateItem(slot, items.get(slot));
+                    changed = true;
+                }
+            }
+            for (Integer slot : session.sources.keySet()) {
+                if (!sources.containsKey(slot)) {
+                    modal.removeItem(slot);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+
     private static final class GuiSession {
         GuiType type;
         int page;
         String filter;
         Sort sort;
         String colorFilter;
+        String search;
+        List<String> shown = List.of();
+        BaseModal modal;
+        String title;
+        int rows;
+        Map<Integer, ItemStack> sources = Map.of();
+        Map<Integer, ModalItem> items = Map.of();
+        ViewKey viewKey;
+        List<TagModal.Tag> view = List.of();
 
         GuiSession(GuiType t, int p, String f, Sort s, String c) {
             this.type = t;
@@ -893,6 +877,16 @@ public final class ModalProcessor implements Listener {
         }
     }
 
+    /** Rendered items of one tag instance, indexed by state and favourite flag. */
+    private static final class TagItems {
+        final TagModal.Tag tag;
+        final ItemStack[] stacks = new ItemStack[ConfigModule.GameState.values().length * 2];
+
+        TagItems(TagModal.Tag tag) {
+            this.tag = tag;
+        }
+    }
+
     private static enum GuiType {
         CATEGORY, TAGS
     }
@@ -0,0 +1,244 @@
+package io.rhythmknights.coretags.component.modal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.RecordComponent;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compiled form of tags.yml, keyed by the SHA-256 of the source file. Holds every tag's
+ * raw fields with defaults already applied, plus the file's remaining (non-tag) settings,
+ * so {@link TagModal} can skip parsing the tag list on a start where tags.yml is unchanged.
+ * The header also carries a fingerprint of the compiler that produced it (its revision,
+ * the plugin version and the shape of {@link Entry}); a cache from any other compiler is
+ * treated as missing.
+ */
+final class TagCatalogCache {
+   private static final int MAGIC = 0x43544743;
+   private static final int VERSION = 2;
+   private final Path file;
+   private final String fingerprint;
+   private final Logger logger;
+
+   TagCatalogCache(Path file, String compiler, Logger logger) {
+      this.file = file;
+      this.fingerprint = compiler + "|" + entryShape();
+      this.logger = logger;
+   }
+
+   private static String entryShape() {
+      StringBuilder shape = new StringBuilder();
+
+      for (RecordComponent c : TagCatalogCache.Entry.class.getRecordComponents()) {
+         shape.append(c.getGenericType().getTypeName()).append(' ').append(c.getName()).append(';');
+      }
+
+      return shape.toString();
+   }
+
+   static byte[] hash(byte[] source) {
+      try {
+         return MessageDigest.getInstance("SHA-256").digest(source);
+      } catch (NoSuchAlgorithmException var2) {
+         throw new IllegalStateException(var2);
+      }
+   }
+
+   /** Returns the compiled catalog for {@code hash}, or {@code null} if the cache is missing, stale or unreadable. */
+   TagCatalogCache.Compiled read(byte[] hash) {
+      CRC32 crc = new CRC32();
+
+      try (InputStream raw = new BufferedInputStream(Files.newInputStream(this.file))) {
+         DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+         if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(this.fingerprint)) {
+            return null;
+         } else {
+            byte[] stored = new byte[in.readUnsignedByte()];
+            in.readFully(stored);
+            if (!Arrays.equals(stored, hash)) {
+               return null;
+            } else {
+               String settings = readText(in);
+               int count = in.readInt();
+               List<TagCatalogCache.Entry> entries = new ArrayList(count);
+
+               for (int i = 0; i < count; ++i) {
+                  String id = in.readUTF();
+                  String category = in.readUTF();
+                  String material = in.readUTF();
+                  String name = in.readUTF();
+                  String display = in.readUTF();
+                  int lines = in.readInt();
+                  List<String> description = new ArrayList(lines);
+
+                  for (int j = 0; j < lines; ++j) {
+                     description.add(in.readUTF());
+                  }
+
+                  int cost = in.readInt();
+                  String permission = in.readUTF();
+                  String color = in.readUTF();
+                  entries.add(new TagCatalogCache.Entry(id, category, material, name, display, List.copyOf(description), cost, permission, color));
+               }
+
+               long expected = crc.getValue();
+               return new DataInputStream(raw).readLong() != expected ? null : new TagCatalogCache.Compiled(settings, entries);
+            }
+         }
+      } catch (NoSuchFileException var22) {
+         return null;
+      } catch (IOException var23) {
+         this.logger.warning("Ignoring unreadable tag catalog cache: " + var23.getMessage());
+         return null;
+      }
+   }
+
+   /** Writes {@code compiled} under {@code hash}, replacing any previous cache. Failures are logged, not thrown. */
+   void write(byte[] hash, TagCatalogCache.Compiled compiled) {
+      Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+      CRC32 crc = new CRC32();
+
+      try {
+         Files.createDirectories(this.file.getParent());
+
+         try (
+            OutputStream raw = Files.newOutputStream(tmp);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(raw, crc)));
+         ) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(this.fingerprint);
+            out.writeByte(hash.length);
+            out.write(hash);
+            writeText(out, compiled.settingsYaml());
+            out.writeInt(compiled.entries().size());
+
+            for (TagCatalogCache.Entry e : compiled.entries()) {
+               out.writeUTF(e.id());
+               out.writeUTF(e.category());
+               out.writeUTF(e.material());
+               out.writeUTF(e.name());
+               out.writeUTF(e.display());
+               out.writeInt(e.description().size());
+
+               for (String line : e.description()) {
+                  out.writeUTF(line);
+               }
+
+               out.writeInt(e.cost());
+               out.writeUTF(e.permission());
+               out.writeUTF(e.color());
+            }
+
+            out.flush();
+            raw.write(ByteBuffer.allocate(8).putLong(crc.getValue()).array());
+         }
+
+         try {
+            Files.move(tmp, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         } catch (AtomicMoveNotSupportedException var12) {
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } catch (IOException var15) {
+         this.logger.warning("Could not write tag catalog cache: " + var15.getMessage());
+      }
+
+   }
+
+   private static void writeText(DataOutputStream out, String s) throws IOException {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static String readText(DataInputStream in) throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   static record Compiled(String settingsYaml, List<TagCatalogCache.Entry> entries) {
+      Compiled(String settingsYaml, List<TagCatalogCache.Entry> entries) {
+         this.settingsYaml = settingsYaml;
+         this.entries = entries;
+      }
+
+      public String settingsYaml() {
+         return this.settingsYaml;
+      }
+
+      public List<TagCatalogCache.Entry> entries() {
+         return this.entries;
+      }
+   }
+
+   static record Entry(String id, String category, String material, String name, String display, List<String> description, int cost, String permission, String color) {
+      Entry(String id, String category, String material, String name, String display, List<String> description, int cost, String permission, String color) {
+         this.id = id;
+         this.category = category;
+         this.material = material;
+         this.name = name;
+         this.display = display;
+         this.description = description;
+         this.cost = cost;
+         this.permission = permission;
+         this.color = color;
+      }
+
+      public String id() {
+         return this.id;
+      }
+
+      public String category() {
+         return this.category;
+      }
+
+      public String material() {
+         return this.material;
+      }
+
+      public String name() {
+         return this.name;
+      }
+
+      public String display() {
+         return this.display;
+      }
+
+      public List<String> description() {
+         return this.description;
+      }
+
+      public int cost() {
+         return this.cost;
+      }
+
+      public String permission() {
+         return this.permission;
+      }
+
+      public String color() {
+         return this.color;
+      }
+   }
+}
@@ -2,20 +2,34 @@ package io.rhythmknights.coretags.component.modal;
 
 import io.rhythmknights.coretags.CoreTags;
 import io.rhythmknights.coretags.component.data.ConfigModule;
+import io.rhythmknights.coretags.component.data.TagOrdinals;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -24,15 +38,18 @@ import org.bukkit.configuration.file.YamlConfiguration;
 public final class TagModal {
    private final CoreTags plugin;
    private final File file;
-   private YamlConfiguration tagCfg;
-   private final Map<String, TagModal.Tag> tagsByKey = new HashMap();
-   private final Map<String, List<TagModal.Tag>> tagsByCategory = new HashMap();
-   private final EnumMap<ConfigModule.GameState, String> statusMap = new EnumMap(ConfigModule.GameState.class);
+   private final TagCatalogCache cache;
+   private final AtomicReference<TagModal.Catalog> catalog = new AtomicReference(TagModal.Catalog.EMPTY);
+   private volatile int version;
+   private long reads;
+   private long published;
+   private static final int COMPILE_REVISION = 1;
    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacyAmpersand();
 
    public TagModal(CoreTags plugin) {
       this.plugin = plugin;
       this.file = new File(plugin.getDataFolder(), "components/tags.yml");
+      this.cache = new TagCatalogCache(new File(plugin.getDataFolder(), "cache/tags.bin").toPath(), "r" + COMPILE_REVISION + "/" + plugin.getDescription().getVersion(), plugin.getLogger());
       if (!this.file.exists()) {
          plugin.saveResource("components/tags.yml", false);
       }
@@ -41,85 +58,262 @@ public final class TagModal {
    }
 
    public void reload() {
-      this.tagsByKey.clear();
-      this.tagsByCategory.clear();
-      this.statusMap.clear();
-      this.tagCfg = new YamlConfiguration();
-
       try {
-         this.tagCfg.load(this.file);
-      } catch (IOException | InvalidConfigurationException var11) {
-         this.plugin.getLogger().severe("Failed to load components/tags.yml: " + var11.getMessage());
-         return;
+         this.prepareUpdate().apply();
+      } catch (IOException | InvalidConfigurationException var2) {
+         this.plugin.getLogger().severe("Failed to load components/tags.yml: " + var2.getMessage());
       }
 
-      ConfigurationSection statRoot = this.tagCfg.getConfigurationSection("settings.system.status");
-      String id;
-      if (statRoot != null) {
-         ConfigModule.GameState[] var2 = ConfigModule.GameState.values();
-         int var3 = var2.length;
+   }
+
+   /**
+    * Reads tags.yml and builds the complete catalog without publishing it. Safe to call
+    * off the main thread; the returned action swaps the catalog in.
+    */
+   public Runnable prepareReload() throws IOException, InvalidConfigurationException {
+      TagModal.Update update = this.prepareUpdate();
+      return update::apply;
+   }
+
+   /**
+    * Like {@link #prepareReload()}, but {@link TagModal.Update#apply()} also reports which
+    * tag ids differ from the catalog it replaced. Each read is numbered, so whichever of
+    * the watcher and {@code /coretags reload} read tags.yml last is the one that stays
+    * published, whatever order their main-thread tasks run in.
+    */
+   public synchronized TagModal.Update prepareUpdate() throws IOException, InvalidConfigurationException {
+      long read = ++this.reads;
+      return new TagModal.Update(this, this.build((TagModal.Catalog)this.catalog.get()), read);
+   }
+
+   /**
+    * Publishes {@code next} unless a later read of tags.yml has already been published.
+    * Tags whose definition is unchanged keep their existing {@link TagModal.Tag}
+    * instance, so the diff is an identity comparison. Main thread only.
+    */
+   private TagModal.Change publish(TagModal.Catalog next, long read) {
+      if (read <= this.published) {
+         return TagModal.Change.NONE;
+      } else {
+         this.published = read;
+         TagModal.Catalog previous = (TagModal.Catalog)this.catalog.get();
+         if (next == previous) {
+            return TagModal.Change.NONE;
+         } else {
+            Set<String> changed = new HashSet();
+
+            for (Map.Entry<String, TagModal.Tag> e : next.byKey.entrySet()) {
+               if (previous.byKey.get(e.getKey()) != e.getValue()) {
+                  changed.add((String)e.getKey());
+               }
+            }
+
+            for (String id : previous.byKey.keySet()) {
+               if (!next.byKey.containsKey(id)) {
+                  changed.add(id);
+               }
+            }
 
-         for(int var4 = 0; var4 < var3; ++var4) {
-            ConfigModule.GameState gs = var2[var4];
-            id = statRoot.getString(gs.name().toLowerCase(Locale.ROOT), "&f" + gs.name());
-            this.statusMap.put(gs, LEGACY.serialize(LEGACY.deserialize(id)));
+            this.catalog.set(next);
+            ++this.version;
+            this.plugin.getLogger().info("Loaded " + next.byKey.size() + " tags (" + next.textReferences + " text components, " + next.textDistinct + " distinct).");
+            return new TagModal.Change(Collections.unmodifiableSet(changed), !next.settingsYaml.equals(previous.settingsYaml));
          }
       }
+   }
+
+   /**
+    * Builds the catalog from the compiled cache when tags.yml is unchanged since it was
+    * written; otherwise parses tags.yml, compiles it and refreshes the cache. Returns
+    * {@code previous} itself when the file still has the hash it was built from.
+    */
+   private synchronized TagModal.Catalog build(TagModal.Catalog previous) throws IOException, InvalidConfigurationException {
+      byte[] source = Files.readAllBytes(this.file.toPath());
+      byte[] hash = TagCatalogCache.hash(source);
+      if (Arrays.equals(hash, previous.hash)) {
+         return previous;
+      } else {
+         TagCatalogCache.Compiled compiled = this.cache.read(hash);
+         if (compiled == null) {
+            compiled = this.compile(new String(source, StandardCharsets.UTF_8));
+            this.cache.write(hash, compiled);
+         }
 
-      ConfigurationSection root = this.tagCfg.getConfigurationSection("settings.tags");
+         return this.link(hash, compiled, previous);
+      }
+   }
+
+   /**
+    * Turns tags.yml into cacheable entries. Bump {@link #COMPILE_REVISION} with any change
+    * to what this produces (defaults, normalisation, which keys are read), or caches
+    * written by the old code will keep being loaded for an unchanged tags.yml.
+    */
+   private TagCatalogCache.Compiled compile(String source) throws InvalidConfigurationException {
+      YamlConfiguration tagCfg = new YamlConfiguration();
+      tagCfg.loadFromString(source);
+      List<TagCatalogCache.Entry> entries = new ArrayList();
+      ConfigurationSection root = tagCfg.getConfigurationSection("settings.tags");
       if (root == null) {
          this.plugin.getLogger().warning("No 'settings.tags' section in tags.yml!");
       } else {
+         Set<String> seen = new HashSet();
          Iterator it = root.getKeys(false).iterator();
 
          while(it.hasNext()) {
             String key = (String)it.next();
             ConfigurationSection cs = root.getConfigurationSection(key);
-            if (cs != null) {
-               id = key.toLowerCase(Locale.ROOT);
+            String id = key.toLowerCase(Locale.ROOT);
+            if (cs != null && seen.add(id)) {
                String cat = cs.getString("category", "default").replace("coretags.category.", "").toLowerCase(Locale.ROOT);
                String rawColor = cs.getString("color", "ALL").toUpperCase(Locale.ROOT);
                if (rawColor.equals("GREY")) {
                   rawColor = "GRAY";
                }
 
-               List<Component> description = cs.getStringList("description").stream().map((s) -> {
-                  return (Component) LEGACY.deserialize(s);
-               }).toList();
-               TagModal.Tag tag = new TagModal.Tag(id, cat, this.parseMat(cs.getString("material", "PAPER")), LEGACY.deserialize(cs.getString("name", key)), LEGACY.deserialize(cs.getString("display", "[" + key + "]")), description, Math.max(0, cs.getInt("cost", 0)), cs.getString("permission", "coretags.tag." + id), rawColor);
-               this.tagsByKey.put(id, tag);
-               ((List)this.tagsByCategory.computeIfAbsent(cat, (k) -> {
+               entries.add(new TagCatalogCache.Entry(id, cat, cs.getString("material", "PAPER"), cs.getString("name", key), cs.getString("display", "[" + key + "]"), List.copyOf(cs.getStringList("description")), Math.max(0, cs.getInt("cost", 0)), cs.getString("permission", "coretags.tag." + id), rawColor));
+            }
+         }
+      }
+
+      tagCfg.set("settings.tags", (Object)null);
+      return new TagCatalogCache.Compiled(tagCfg.saveToString(), entries);
+   }
+
+   private TagModal.Catalog link(byte[] hash, TagCatalogCache.Compiled compiled, TagModal.Catalog previous) throws InvalidConfigurationException {
+      YamlConfiguration settings = new YamlConfiguration();
+      settings.loadFromString(compiled.settingsYaml());
+      EnumMap<ConfigModule.GameState, String> statusMap = new EnumMap(ConfigModule.GameState.class);
+      ConfigurationSection statRoot = settings.getConfigurationSection("settings.system.status");
+      if (statRoot != null) {
+         ConfigModule.GameState[] var4 = ConfigModule.GameState.values();
+         int var5 = var4.length;
+
+         for(int var6 = 0; var6 < var5; ++var6) {
+            ConfigModule.GameState gs = var4[var6];
+            String raw = statRoot.getString(gs.name().toLowerCase(Locale.ROOT), "&f" + gs.name());
+            statusMap.put(gs, LEGACY.serialize(LEGACY.deserialize(raw)));
+         }
+      }
+
+      List<TagCatalogCache.Entry> entries = compiled.entries();
+      List<String> ids = new ArrayList(entries.size());
+
+      for (TagCatalogCache.Entry e : entries) {
+         ids.add(e.id());
+      }
+
+      TagOrdinals ordinals = TagOrdinals.extendCurrent(ids);
+      Map<String, TagModal.Tag> byKey = new LinkedHashMap();
+      Map<String, TagCatalogCache.Entry> sources = new HashMap();
+      Map<String, List<TagModal.Tag>> byCategory = new HashMap();
+      ComponentPool pool = new ComponentPool(LEGACY);
+
+      for (TagCatalogCache.Entry e : entries) {
+         TagModal.Tag tag = e.equals(previous.sources.get(e.id())) ? (TagModal.Tag)previous.byKey.get(e.id()) : null;
+         if (tag == null) {
+            tag = new TagModal.Tag(e.id(), e.category(), this.parseMat(e.material()), new TagModal.Text(pool.component(e.name())), new TagModal.Text(pool.component(e.display())), pool.lines(e.description()), e.cost(), e.permission(), e.color(), ordinals.ordinalOf(e.id()));
+         } else {
+            pool.adopt(e.name(), tag.name());
+            pool.adopt(e.display(), tag.display());
+            pool.adopt(e.description(), tag.description());
+         }
+
+         byKey.put(e.id(), tag);
+         sources.put(e.id(), e);
+         ((List)byCategory.computeIfAbsent(e.category(), (k) -> {
+            return new ArrayList();
+         })).add(tag);
+      }
+
+      byCategory.replaceAll((k, list) -> {
+         list.sort(Comparator.comparing(TagModal.Tag::id));
+         return Collections.unmodifiableList(list);
+      });
+      Map<String, Map<TagModal.TagColor, List<TagModal.Tag>>> byCategoryColor = new HashMap();
+      BitSet free = new BitSet(ordinals.size());
+
+      for (Map.Entry<String, List<TagModal.Tag>> e : byCategory.entrySet()) {
+         EnumMap<TagModal.TagColor, List<TagModal.Tag>> colors = new EnumMap(TagModal.TagColor.class);
+
+         for (TagModal.Tag tag : e.getValue()) {
+            TagModal.TagColor color = TagModal.TagColor.parse(tag.color());
+            if (color != null) {
+               ((List)colors.computeIfAbsent(color, (c) -> {
                   return new ArrayList();
                })).add(tag);
             }
+
+            if (tag.cost() == 0) {
+               free.set(tag.ordinal());
+            }
          }
 
-         this.tagsByCategory.values().forEach((list) -> {
-            list.sort(Comparator.comparing(TagModal.Tag::id));
+         colors.replaceAll((c, list) -> {
+            return Collections.unmodifiableList(list);
          });
-         this.plugin.getLogger().info("Loaded " + this.tagsByKey.size() + " tags.");
+         byCategoryColor.put((String)e.getKey(), colors);
       }
 
+      return new TagModal.Catalog(hash, compiled.settingsYaml(), settings, Collections.unmodifiableMap(byKey), sources, Collections.unmodifiableMap(byCategory), byCategoryColor, free, new TagSearchIndex(byKey.values()), statusMap, ordinals, pool.references(), pool.distinct());
    }
 
    public YamlConfiguration rawConfig() {
-      return this.tagCfg;
+      return ((TagModal.Catalog)this.catalog.get()).config;
    }
 
    public String statusText(ConfigModule.GameState state) {
-      return (String)this.statusMap.getOrDefault(state, state.name());
+      return (String)((TagModal.Catalog)this.catalog.get()).statusMap.getOrDefault(state, state.name());
+   }
+
+   /** Incremented each time a catalog is published; views derived from the tags key on it. */
+   public int version() {
+      return this.version;
    }
 
    public Optional<TagModal.Tag> byId(String id) {
-      return Optional.ofNullable((TagModal.Tag)this.tagsByKey.get(id.toLowerCase(Locale.ROOT)));
+      return Optional.ofNullable((TagModal.Tag)((TagModal.Catalog)this.catalog.get()).byKey.get(id.toLowerCase(Locale.ROOT)));
    }
 
    public List<TagModal.Tag> byCategory(String cat) {
-      return (List)this.tagsByCategory.getOrDefault(cat.toLowerCase(Locale.ROOT), List.of());
+      return (List)((TagModal.Catalog)this.catalog.get()).byCategory.getOrDefault(cat.toLowerCase(Locale.ROOT), List.of());
+   }
+
+   /**
+    * Tags of {@code categories}, in the order given and by id within each category, that
+    * have {@code color} (any color if {@code null}) and fall in {@code cost}. Resolved from
+    * per-category, per-color lists built at load time; a single category with no cost
+    * restriction returns the prebuilt list itself.
+    */
+   public List<TagModal.Tag> select(Collection<String> categories, TagModal.TagColor color, TagModal.CostClass cost) {
+      TagModal.Catalog c = (TagModal.Catalog)this.catalog.get();
+      if (categories.size() == 1 && cost == TagModal.CostClass.ANY) {
+         return c.slice((String)categories.iterator().next(), color);
+      } else {
+         List<TagModal.Tag> out = new ArrayList();
+
+         for (String category : categories) {
+            for (TagModal.Tag tag : c.slice(category, color)) {
+               if (cost == TagModal.CostClass.ANY || c.free.get(tag.ordinal()) == (cost == TagModal.CostClass.FREE)) {
+                  out.add(tag);
+               }
+            }
+         }
+
+         return out;
+      }
+   }
+
+   /** Tags whose id, name or description contains {@code query}, best match first. */
+   public List<TagModal.Tag> search(String query) {
+      return ((TagModal.Catalog)this.catalog.get()).search.search(query);
    }
 
    public Collection<TagModal.Tag> all() {
-      return this.tagsByKey.values();
+      return ((TagModal.Catalog)this.catalog.get()).byKey.values();
+   }
+
+   public TagOrdinals ordinals() {
+      return ((TagModal.Catalog)this.catalog.get()).ordinals;
    }
 
    private Material parseMat(String raw) {
@@ -130,18 +324,192 @@ public final class TagModal {
       }
    }
 
-   public static record Tag(String id, String category, Material icon, Component name, Component display, List<Component> description, int cost, String permission, String color) {
-      public Tag(String id, String category, Material icon, Component name, Component display, List<Component> description, int cost, String permission, String color) {
+   /** Immutable tag registry published as a whole on every reload. */
+   private static final class Catalog {
+      static final TagModal.Catalog EMPTY = new TagModal.Catalog(new byte[0], "", new YamlConfiguration(), Map.of(), Map.of(), Map.of(), Map.of(), new BitSet(), TagSearchIndex.EMPTY, new EnumMap(ConfigModule.GameState.class), TagOrdinals.EMPTY, 0, 0);
+      final byte[] hash;
+      final String settingsYaml;
+      final YamlConfiguration config;
+      final Map<String, TagModal.Tag> byKey;
+      final Map<String, TagCatalogCache.Entry> sources;
+      final Map<String, List<TagModal.Tag>> byCategory;
+      final Map<String, Map<TagModal.TagColor, List<TagModal.Tag>>> byCategoryColor;
+      final BitSet free;
+      final TagSearchIndex search;
+      final Map<ConfigModule.GameState, String> statusMap;
+      final TagOrdinals ordinals;
+      final int textReferences;
+      final int textDistinct;
+
+      Catalog(byte[] hash, String settingsYaml, YamlConfiguration config, Map<String, TagModal.Tag> byKey, Map<String, TagCatalogCache.Entry> sources, Map<String, List<TagModal.Tag>> byCategory, Map<String, Map<TagModal.TagColor, List<TagModal.Tag>>> byCategoryColor, BitSet free, TagSearchIndex search, Map<ConfigModule.GameState, String> statusMap, TagOrdinals ordinals, int textReferences, int textDistinct) {
+         this.hash = hash;
+         this.settingsYaml = settingsYaml;
+         this.config = config;
+         this.byKey = byKey;
+         this.sources = sources;
+         this.byCategory = byCategory;
+         this.byCategoryColor = byCategoryColor;
+         this.free = free;
+         this.search = search;
+         this.statusMap = statusMap;
+         this.ordinals = ordinals;
+         this.textReferences = textReferences;
+         this.textDistinct = textDistinct;
+      }
+
+      List<TagModal.Tag> slice(String category, TagModal.TagColor color) {
+         String key = category.toLowerCase(Locale.ROOT);
+         if (color == null) {
+            return (List)this.byCategory.getOrDefault(key, List.of());
+         } else {
+            Map<TagModal.TagColor, List<TagModal.Tag>> colors = (Map)this.byCategoryColor.get(key);
+            return colors == null ? List.of() : (List)colors.getOrDefault(color, List.of());
+         }
+      }
+   }
+
+   /** Tag colors the GUI can filter by. Tags with any other color only show unfiltered. */
+   public static enum TagColor {
+      MULTI,
+      RED,
+      ORANGE,
+      YELLOW,
+      GREEN,
+      BLUE,
+      PURPLE,
+      PINK,
+      BROWN,
+      GRAY,
+      BLACK,
+      WHITE;
+
+      /** The color named by {@code raw} ({@code GREY} is accepted), or {@code null} for ALL or an unknown name. */
+      public static TagModal.TagColor parse(String raw) {
+         String name = raw.toUpperCase(Locale.ROOT);
+
+         try {
+            return valueOf(name.equals("GREY") ? "GRAY" : name);
+         } catch (IllegalArgumentException var3) {
+            return null;
+         }
+      }
+   }
+
+   public static enum CostClass {
+      ANY,
+      FREE,
+      PAID;
+   }
+
+   /**
+    * A parsed piece of tag text together with its serialized forms. The legacy and plain
+    * forms and the collation key feed every GUI render, message and placeholder, so they
+    * are computed once on the loading thread; the MiniMessage form on first use.
+    */
+   public static final class Text {
+      private static final Collator COLLATOR = collator();
+      private final Component component;
+      private final String legacy;
+      private final CollationKey sortKey;
+      private final String plain;
+      private volatile String miniMessage;
+
+      public Text(Component component) {
+         this.component = component;
+         this.legacy = LEGACY.serialize(component);
+         this.plain = PlainTextComponentSerializer.plainText().serialize(component);
+         synchronized(COLLATOR) {
+            this.sortKey = COLLATOR.getCollationKey(this.plain);
+         }
+      }
+
+      private static Collator collator() {
+         Collator collator = Collator.getInstance(Locale.ROOT);
+         collator.setStrength(Collator.PRIMARY);
+         return collator;
+      }
+
+      public Component component() {
+         return this.component;
+      }
+
+      /** Legacy {@code &}-coded form. */
+      public String legacy() {
+         return this.legacy;
+      }
+
+      public String plain() {
+         return this.plain;
+      }
+
+      public String miniMessage() {
+         String s = this.miniMessage;
+         if (s == null) {
+            s = MiniMessage.miniMessage().serialize(this.component);
+            this.miniMessage = s;
+         }
+
+         return s;
+      }
+
+      public CollationKey sortKey() {
+         return this.sortKey;
+      }
+   }
+
+   /** A read of tags.yml from {@link TagModal#prepareUpdate()}, waiting to be published. */
+   public static final class Update {
+      private final TagModal owner;
+      private final TagModal.Catalog next;
+      private final long read;
+
+      private Update(TagModal owner, TagModal.Catalog next, long read) {
+         this.owner = owner;
+         this.next = next;
+         this.read = read;
+      }
+
+      /** Publishes this read unless a later one already was. Main thread only. */
+      public TagModal.Change apply() {
+         return this.owner.publish(this.next, this.read);
+      }
+   }
+
+   /** What {@link TagModal.Update#apply()} changed in the published catalog. */
+   public static record Change(Set<String> changed, boolean settingsChanged) {
+      static final TagModal.Change NONE = new TagModal.Change(Set.of(), false);
+
+      public Change(Set<String> changed, boolean settingsChanged) {
+         this.changed = changed;
+         this.settingsChanged = settingsChanged;
+      }
+
+      public boolean isEmpty() {
+         return this.changed.isEmpty() && !this.settingsChanged;
+      }
+
+      public Set<String> changed() {
+         return this.changed;
+      }
+
+      public boolean settingsChanged() {
+         return this.settingsChanged;
+      }
+   }
+
+   public static record Tag(String id, String category, Material icon, TagModal.Text nameText, TagModal.Text displayText, List<Component> description, int cost, String permission, String color, int ordinal) {
+      public Tag(String id, String category, Material icon, TagModal.Text nameText, TagModal.Text displayText, List<Component> description, int cost, String permission, String color, int ordinal) {
          color = color.toUpperCase(Locale.ROOT).replace("GREY", "GRAY");
          this.id = id;
          this.category = category;
          this.icon = icon;
-         this.name = name;
-         this.display = display;
+         this.nameText = nameText;
+         this.displayText = displayText;
          this.description = description;
          this.cost = cost;
          this.permission = permission;
          this.color = color;
+         this.ordinal = ordinal;
       }
 
       public String id() {
@@ -156,12 +524,25 @@ public final class TagModal {
          return this.icon;
       }
 
+      public TagModal.Text nameText() {
+         return this.nameText;
+      }
+
+      public TagModal.Text displayText() {
+         return this.displayText;
+      }
+
       public Component name() {
-         return this.name;
+         return this.nameText.component();
       }
 
       public Component display() {
-         return this.display;
+         return this.displayText.component();
+      }
+
+      /** Collation key of the plain name, for case- and accent-insensitive sorting. */
+      public CollationKey sortKey() {
+         return this.nameText.sortKey();
       }
 
       public List<Component> description() {
@@ -179,5 +560,9 @@ public final class TagModal {
       public String color() {
          return this.color;
       }
+
+      public int ordinal() {
+         return this.ordinal;
+      }
    }
 }
@@ -0,0 +1,205 @@
+package io.rhythmknights.coretags.component.modal;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+
+/**
+ * Search index over tag ids, plain names and plain descriptions, built once per catalog.
+ * Queries of three or more characters intersect trigram posting lists; shorter queries
+ * look up word prefixes. Only the resulting candidates are checked and ranked, so a
+ * search never walks the whole catalog.
+ */
+final class TagSearchIndex {
+   private static final int GRAM = 3;
+   private static final int[] NONE = new int[0];
+   private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+   private static final Pattern WORD_BREAK = Pattern.compile("[^\\p{L}\\p{N}]+");
+   static final TagSearchIndex EMPTY = new TagSearchIndex(List.of());
+   private final TagModal.Tag[] tags;
+   private final String[] ids;
+   private final String[] names;
+   private final String[] descriptions;
+   private final Map<String, int[]> grams;
+   private final Map<String, int[]> prefixes;
+
+   TagSearchIndex(Collection<TagModal.Tag> all) {
+      int n = all.size();
+      this.tags = (TagModal.Tag[])all.toArray(new TagModal.Tag[0]);
+      this.ids = new String[n];
+      this.names = new String[n];
+      this.descriptions = new String[n];
+      Map<String, List<Integer>> gramLists = new HashMap();
+      Map<String, List<Integer>> prefixLists = new HashMap();
+
+      for (int i = 0; i < n; ++i) {
+         TagModal.Tag tag = this.tags[i];
+         StringBuilder description = new StringBuilder();
+
+         for (Component line : tag.description()) {
+            description.append(PlainTextComponentSerializer.plainText().serialize(line)).append(' ');
+         }
+
+         this.ids[i] = normalize(tag.id());
+         this.names[i] = normalize(tag.nameText().plain());
+         this.descriptions[i] = normalize(description.toString());
+         Set<String> tagGrams = new HashSet();
+         Set<String> tagPrefixes = new HashSet();
+
+         for (String text : new String[]{this.ids[i], this.names[i], this.descriptions[i]}) {
+            for (int j = 0; j + GRAM <= text.length(); ++j) {
+               tagGrams.add(text.substring(j, j + GRAM));
+            }
+
+            for (String word : WORD_BREAK.split(text)) {
+               for (int len = 1; len < GRAM && len <= word.length(); ++len) {
+                  tagPrefixes.add(word.substring(0, len));
+               }
+            }
+         }
+
+         for (String gram : tagGrams) {
+            ((List)gramLists.computeIfAbsent(gram, (k) -> {
+               return new ArrayList();
+            })).add(i);
+         }
+
+         for (String prefix : tagPrefixes) {
+            ((List)prefixLists.computeIfAbsent(prefix, (k) -> {
+               return new ArrayList();
+            })).add(i);
+         }
+      }
+
+      this.grams = freeze(gramLists);
+      this.prefixes = freeze(prefixLists);
+   }
+
+   /** Tags matching {@code query}, best match first and by name within equal rank. */
+   List<TagModal.Tag> search(String query) {
+      String q = normalize(query).trim();
+      if (q.isEmpty()) {
+         return List.of();
+      } else {
+         int[] candidates;
+         if (q.length() < GRAM) {
+            candidates = (int[])this.prefixes.getOrDefault(q, NONE);
+         } else {
+            candidates = null;
+
+            for (int j = 0; j + GRAM <= q.length(); ++j) {
+               int[] postings = (int[])this.grams.get(q.substring(j, j + GRAM));
+               if (postings == null) {
+                  return List.of();
+               }
+
+               candidates = candidates == null ? postings : intersect(candidates, postings);
+               if (candidates.length == 0) {
+                  return List.of();
+               }
+            }
+         }
+
+         List<TagSearchIndex.Hit> hits = new ArrayList(candidates.length);
+
+         for (int pos : candidates) {
+            int score = this.score(pos, q);
+            if (score > 0) {
+               hits.add(new TagSearchIndex.Hit(score, this.tags[pos]));
+            }
+         }
+
+         hits.sort(Comparator.comparingInt(TagSearchIndex.Hit::score).reversed().thenComparing((h) -> {
+            return h.tag().sortKey();
+         }));
+         List<TagModal.Tag> out = new ArrayList(hits.size());
+
+         for (TagSearchIndex.Hit hit : hits) {
+            out.add(hit.tag());
+         }
+
+         return out;
+      }
+   }
+
+   private int score(int pos, String q) {
+      String id = this.ids[pos];
+      String name = this.names[pos];
+      if (id.equals(q)) {
+         return 100;
+      } else if (name.equals(q)) {
+         return 90;
+      } else if (name.startsWith(q)) {
+         return 70;
+      } else if (id.startsWith(q)) {
+         return 60;
+      } else if (name.contains(" " + q)) {
+         return 50;
+      } else if (name.contains(q)) {
+         return 40;
+      } else if (id.contains(q)) {
+         return 30;
+      } else {
+         return this.descriptions[pos].contains(q) ? 10 : 0;
+      }
+   }
+
+   private static String normalize(String s) {
+      return MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+   }
+
+   private static Map<String, int[]> freeze(Map<String, List<Integer>> lists) {
+      Map<String, int[]> out = new HashMap(lists.size() * 4 / 3 + 1);
+      lists.forEach((key, list) -> {
+         out.put(key, list.stream().mapToInt(Integer::intValue).toArray());
+      });
+      return out;
+   }
+
+   private static int[] intersect(int[] a, int[] b) {
+      int[] out = new int[Math.min(a.length, b.length)];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+
+      while(i < a.length && j < b.length) {
+         if (a[i] < b[j]) {
+            ++i;
+         } else if (a[i] > b[j]) {
+            ++j;
+         } else {
+            out[k++] = a[i];
+            ++i;
+            ++j;
+         }
+      }
+
+      return k == out.length ? out : Arrays.copyOf(out, k);
+   }
+
+   private static record Hit(int score, TagModal.Tag tag) {
+      private Hit(int score, TagModal.Tag tag) {
+         this.score = score;
+         this.tag = tag;
+      }
+
+      public int score() {
+         return this.score;
+      }
+
+      public TagModal.Tag tag() {
+         return this.tag;
+      }
+   }
+}
@@ -0,0 +1,101 @@
+package io.rhythmknights.coretags.component.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static io.rhythmknights.coretags.component.data.StorageBackendTest.assertRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Crash recovery of {@link JournalStorageBackend}: torn journal tails and unreadable snapshots. */
+class JournalStorageBackendTest {
+    private static final UUID ALICE = UUID.fromString("3f2a8c1e-0000-4000-8000-000000000001");
+    private static final UUID BOB = UUID.fromString("a1b2c3d4-0000-4000-8000-000000000002");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornTailIsDiscardedAndLaterWritesStayVisible() throws IOException {
+        JournalStorageBackend backend = open();
+        backend.save(ALICE, new PlayerDataModule.PlayerData("knight", Set.of("knight"), Set.of()));
+        backend.close();
+
+        Path journal = dir.resolve("journal.log");
+        long intact = Files.size(journal);
+        // Half of an unlock record, as left by a crash mid-write
+        Files.write(journal, new byte[] {1, 0x3f, 0x2a, (byte) 0x8c}, StandardOpenOption.APPEND);
+
+        backend = open();
+        assertEquals(intact, Files.size(journal));
+        assertRecord("knight", Set.of("knight"), Set.of(), backend.load(ALICE));
+        backend.save(BOB, new PlayerDataModule.PlayerData("none", Set.of("rogue"), Set.of()));
+        backend.close();
+
+        backend = open();
+        try {
+            assertRecord("knight", Set.of("knight"), Set.of(), backend.load(ALICE));
+            assertRecord("none", Set.of("rogue"), Set.of(), backend.load(BOB));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws IOException {
+        JournalStorageBackend backend = open();
+        backend.save(ALICE, new PlayerDataModule.PlayerData("none", Set.of("knight"), Set.of()));
+        backend.save(BOB, new PlayerDataModule.PlayerData("none", Set.of("rogue"), Set.of()));
+        backend.close();
+
+        // Flip one byte of the tag id in the second record so its CRC no longer matches
+        Path journal = dir.resolve("journal.log");
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 5] ^= 0x20;
+        Files.write(journal, bytes);
+
+        backend = open();
+        try {
+            assertRecord("none", Set.of("knight"), Set.of(), backend.load(ALICE));
+            assertNull(backend.load(BOB));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void unreadableSnapshotIsQuarantinedAndJournalReplayed() throws IOException {
+        JournalStorageBackend backend = open();
+        backend.save(ALICE, new PlayerDataModule.PlayerData("knight", Set.of("knight", "mage"), Set.of("mage")));
+        backend.close();
+
+        Path snapshot = dir.resolve("snapshot.bin");
+        byte[] garbage = {0x43, 0x54, 0x4a, 0x53, 0, 0, 0, 9};
+        Files.write(snapshot, garbage);
+
+        backend = open();
+        try {
+            assertRecord("knight", Set.of("knight", "mage"), Set.of("mage"), backend.load(ALICE));
+            assertFalse(Files.exists(snapshot));
+            assertArrayEquals(garbage, Files.readAllBytes(dir.resolve("snapshot.bin.corrupt")));
+        } finally {
+            backend.close();
+        }
+    }
+
+    private JournalStorageBackend open() throws IOException {
+        JournalStorageBackend backend = new JournalStorageBackend(dir.toFile(), 0L, 1000L, Logger.getLogger("JournalStorageBackendTest"));
+        backend.open();
+        return backend;
+    }
+}
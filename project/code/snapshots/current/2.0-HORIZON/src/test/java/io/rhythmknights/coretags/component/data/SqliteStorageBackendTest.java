@@ -0,0 +1,53 @@
+package io.rhythmknights.coretags.component.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+import static io.rhythmknights.coretags.component.data.StorageBackendTest.assertRecord;
+
+/** Tag lists are stored comma-joined; ids containing the separator or escape must survive. */
+class SqliteStorageBackendTest {
+    private static final UUID ALICE = UUID.fromString("3f2a8c1e-0000-4000-8000-000000000001");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void separatorAndEscapeCharactersRoundTrip() throws IOException {
+        Set<String> unlocked = Set.of("a,b", "back\\slash", "trailing\\", "\\,", ",", "plain");
+        Set<String> favorites = Set.of("a,b", "\\");
+
+        SqliteStorageBackend backend = open();
+        backend.save(ALICE, new PlayerDataModule.PlayerData("a,b", unlocked, favorites));
+        backend.close();
+
+        backend = open();
+        try {
+            assertRecord("a,b", unlocked, favorites, backend.load(ALICE));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void emptyListsRoundTrip() throws IOException {
+        SqliteStorageBackend backend = open();
+        try {
+            backend.save(ALICE, new PlayerDataModule.PlayerData("knight", Set.of(), Set.of()));
+            assertRecord("knight", Set.of(), Set.of(), backend.load(ALICE));
+        } finally {
+            backend.close();
+        }
+    }
+
+    private SqliteStorageBackend open() throws IOException {
+        SqliteStorageBackend backend = new SqliteStorageBackend(dir.resolve("players.db").toFile());
+        backend.open();
+        return backend;
+    }
+}
@@ -0,0 +1,127 @@
+package io.rhythmknights.coretags.component.data;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Round-trips records through every {@link StorageBackend}, reopening it in between. */
+class StorageBackendTest {
+    private static final UUID ALICE = UUID.fromString("3f2a8c1e-0000-4000-8000-000000000001");
+    private static final UUID BOB = UUID.fromString("a1b2c3d4-0000-4000-8000-000000000002");
+    private static final UUID CAROL = UUID.fromString("00ff00ff-0000-4000-8000-000000000003");
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"flatfile", "yaml", "journal", "sqlite"})
+    void savedRecordsSurviveReopen(String type) throws IOException {
+        StorageBackend backend = open(type);
+        backend.save(ALICE, new PlayerDataModule.PlayerData("knight", Set.of("knight", "mage"), Set.of("mage")));
+        backend.saveAll(Map.of(
+            BOB, new PlayerDataModule.PlayerData("none", Set.of("rogue"), Set.of()),
+            CAROL, new PlayerDataModule.PlayerData("Bard", Set.of(), Set.of("bard"))));
+        backend.close();
+
+        backend = open(type);
+        try {
+            assertRecord("knight", Set.of("knight", "mage"), Set.of("mage"), backend.load(ALICE));
+            assertRecord("none", Set.of("rogue"), Set.of(), backend.load(BOB));
+            assertRecord("bard", Set.of(), Set.of("bard"), backend.load(CAROL));
+            assertNull(backend.load(UUID.randomUUID()));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"flatfile", "yaml", "journal", "sqlite"})
+    void laterSavesReplaceEarlierOnes(String type) throws IOException {
+        StorageBackend backend = open(type);
+        backend.save(ALICE, new PlayerDataModule.PlayerData("knight", Set.of("knight", "mage"), Set.of("mage")));
+        backend.save(ALICE, new PlayerDataModule.PlayerData("mage", Set.of("mage", "rogue"), Set.of()));
+        backend.close();
+
+        backend = open(type);
+        try {
+            assertRecord("mage", Set.of("mage", "rogue"), Set.of(), backend.load(ALICE));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"flatfile", "yaml", "journal", "sqlite"})
+    void deletedRecordsStayDeleted(String type) throws IOException {
+        StorageBackend backend = open(type);
+        backend.saveAll(Map.of(
+            ALICE, new PlayerDataModule.PlayerData("knight", Set.of("knight"), Set.of()),
+            BOB, new PlayerDataModule.PlayerData("none", Set.of("rogue"), Set.of())));
+        backend.deleteAll(List.of(ALICE, CAROL));
+        backend.close();
+
+        backend = open(type);
+        try {
+            assertNull(backend.load(ALICE));
+            assertNotNull(backend.load(BOB));
+            assertEquals(Set.of(BOB), keys(backend));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"flatfile", "yaml", "journal", "sqlite"})
+    void purgeEmptyRemovesOnlyDefaultRecords(String type) throws IOException {
+        StorageBackend backend = open(type);
+        try {
+            backend.saveAll(Map.of(
+                ALICE, new PlayerDataModule.PlayerData("none", Set.of(), Set.of()),
+                BOB, new PlayerDataModule.PlayerData("none", Set.of("rogue"), Set.of())));
+
+            assertEquals(1, backend.purgeEmpty());
+            assertNull(backend.load(ALICE));
+            assertRecord("none", Set.of("rogue"), Set.of(), backend.load(BOB));
+        } finally {
+            backend.close();
+        }
+    }
+
+    /** Opens the backend {@code type} the way {@code PlayerDataModule#openBackend} lays it out. */
+    private StorageBackend open(String type) throws IOException {
+        StorageBackend backend = switch (type) {
+            case "sqlite" -> new SqliteStorageBackend(dir.resolve("players.db").toFile());
+            case "yaml" -> new YamlStorageBackend(dir.resolve("players.yml").toFile());
+            case "journal" -> new JournalStorageBackend(dir.resolve("journal").toFile(), 0L, 1000L, Logger.getLogger("StorageBackendTest"));
+            default -> new FlatFileStorageBackend(dir.resolve("players").toFile());
+        };
+        backend.open();
+        return backend;
+    }
+
+    private static Set<UUID> keys(StorageBackend backend) throws IOException {
+        Map<UUID, PlayerDataModule.PlayerData> all = new HashMap<>();
+        backend.forEach(all::put);
+        return all.keySet();
+    }
+
+    static void assertRecord(String active, Set<String> unlocked, Set<String> favorites, PlayerDataModule.PlayerData actual) {
+        assertNotNull(actual);
+        assertEquals(active, actual.active);
+        assertEquals(unlocked, Set.copyOf(actual.unlocked));
+        assertEquals(favorites, Set.copyOf(actual.favorites));
+    }
+}
@@ -0,0 +1,83 @@
+package io.rhythmknights.coretags.component.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids outside the ordinal table go to the overflow set. {@link TagOrdinals} is global and
+ * append-only, so every test uses ids of its own.
+ */
+class TagSetTest {
+
+    @Test
+    void unknownIdsAreKeptAlongsideKnownOnes() {
+        TagOrdinals.extendCurrent(List.of("keep-known"));
+        TagSet set = new TagSet(List.of("keep-known", "keep-unknown"));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains("keep-known"));
+        assertTrue(set.contains("keep-unknown"));
+        assertEquals(Set.of("keep-known", "keep-unknown"), new HashSet<>(set));
+
+        assertTrue(set.remove("keep-unknown"));
+        assertFalse(set.remove("keep-unknown"));
+        assertEquals(Set.of("keep-known"), new HashSet<>(set));
+    }
+
+    @Test
+    void overflowIdIsFoundByOrdinalOnceTheTableGrows() {
+        TagSet set = new TagSet(List.of("grow-late"));
+        int ordinal = TagOrdinals.extendCurrent(List.of("grow-late")).ordinalOf("grow-late");
+
+        assertTrue(set.containsOrdinal(ordinal));
+        assertTrue(set.contains("grow-late"));
+
+        TagSet copy = set.copy();
+        assertEquals(1, copy.size());
+        assertTrue(copy.containsOrdinal(ordinal));
+        assertEquals(Set.of("grow-late"), new HashSet<>(copy));
+    }
+
+    @Test
+    void iteratorRemovesFromBitsAndOverflow() {
+        TagOrdinals.extendCurrent(List.of("iter-known"));
+        TagSet set = new TagSet(List.of("iter-known", "iter-unknown"));
+
+        for (Iterator<String> it = set.iterator(); it.hasNext(); ) {
+            it.next();
+            it.remove();
+        }
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains("iter-known"));
+        assertFalse(set.contains("iter-unknown"));
+    }
+
+    @Test
+    void frozenSetsReturnModifiedCopies() {
+        TagSet set = new TagSet(List.of("frozen-a", "frozen-b")).freeze();
+
+        assertThrows(UnsupportedOperationException.class, () -> set.add("frozen-c"));
+        assertSame(set, set.with("frozen-a"));
+        assertSame(set, set.without("frozen-c"));
+
+        TagSet added = set.with("frozen-c");
+        TagSet removed = set.without("frozen-b");
+        assertNotSame(set, added);
+        assertEquals(Set.of("frozen-a", "frozen-b", "frozen-c"), new HashSet<>(added));
+        assertEquals(Set.of("frozen-a"), new HashSet<>(removed));
+        assertEquals(Set.of("frozen-a", "frozen-b"), new HashSet<>(set));
+        assertThrows(UnsupportedOperationException.class, () -> added.remove("frozen-a"));
+    }
+}
@@ -0,0 +1,57 @@
+package io.rhythmknights.coretags.component.modal;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TagSearchIndexTest {
+    private final TagSearchIndex index = new TagSearchIndex(List.of(
+        tag("dragon", "Dragon Slayer", "Slain a dragon in single combat"),
+        tag("fire", "Dragonfire", "Burns bright"),
+        tag("slayer", "Knight", "A dragon hunter"),
+        tag("owl", "Night Owl", "Up late"),
+        tag("hawk", "Night Hawk", "Up early")));
+
+    @Test
+    void exactIdOutranksNamePrefixOutranksDescription() {
+        assertEquals(List.of("dragon", "fire", "slayer"), ids(index.search("dragon")));
+    }
+
+    @Test
+    void queriesIgnoreCaseAndAccents() {
+        assertEquals(ids(index.search("dragon")), ids(index.search("  DRÁGON ")));
+    }
+
+    @Test
+    void shortQueriesMatchWordPrefixes() {
+        // an id prefix ranks above a later word of the name
+        assertEquals(List.of("slayer", "dragon"), ids(index.search("sl")));
+    }
+
+    @Test
+    void equalScoresAreOrderedByName() {
+        // both names start with the query; "Knight" only contains it
+        assertEquals(List.of("hawk", "owl", "slayer"), ids(index.search("night")));
+    }
+
+    @Test
+    void everyQueryTrigramMustMatch() {
+        assertEquals(List.of(), index.search("dragonx"));
+        assertEquals(List.of(), index.search("zz"));
+        assertEquals(List.of(), index.search("   "));
+    }
+
+    private static TagModal.Tag tag(String id, String name, String description) {
+        return new TagModal.Tag(id, "default", Material.PAPER, new TagModal.Text(Component.text(name)),
+            new TagModal.Text(Component.text("[" + name + "]")), List.of(Component.text(description)),
+            0, "coretags.tag." + id, "ALL", 0);
+    }
+
+    private static List<String> ids(List<TagModal.Tag> tags) {
+        return tags.stream().map(TagModal.Tag::id).toList();
+    }
+}